@@ -0,0 +1,128 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ndrewcoding.springboot2.datasource.PrimaryReadContext;
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class AnimeCache {
+	private final Cache<Long, Anime> animesById;
+	private final Cache<String, List<Long>> animeIdsByName;
+	private final Cache<Long, Boolean> missingAnimeIds;
+	private final AtomicLong generation = new AtomicLong();
+
+	public AnimeCache(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.anime.maximum-size:10000}") long maximumSize,
+			@Value("${ndrewcoding.cache.anime.ttl:10m}") Duration ttl,
+			@Value("${ndrewcoding.cache.anime.missing-maximum-size:100000}") long missingMaximumSize,
+			@Value("${ndrewcoding.cache.anime.missing-ttl:5s}") Duration missingTtl) {
+		this.animesById = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+		this.animeIdsByName = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats()
+				.build();
+		this.missingAnimeIds = Caffeine.newBuilder().maximumSize(missingMaximumSize).expireAfterWrite(missingTtl)
+				.recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, animesById, "animesById");
+		CaffeineCacheMetrics.monitor(meterRegistry, animeIdsByName, "animeIdsByName");
+		CaffeineCacheMetrics.monitor(meterRegistry, missingAnimeIds, "missingAnimeIds");
+	}
+
+	public Optional<Anime> getById(long id, LongFunction<Optional<Anime>> animeLoader) {
+		Anime cachedAnime = animesById.getIfPresent(id);
+		if (cachedAnime != null) {
+			return Optional.of(cachedAnime);
+		}
+		if (missingAnimeIds.getIfPresent(id) != null) {
+			return Optional.empty();
+		}
+
+		long loadGeneration = generation.get();
+		Optional<Anime> anime;
+		try (PrimaryReadContext primaryReadContext = PrimaryReadContext.open()) {
+			anime = animeLoader.apply(id).map(this::detachedCopy);
+		}
+		if (anime.isPresent()) {
+			animesById.put(id, anime.get());
+		} else {
+			missingAnimeIds.put(id, Boolean.TRUE);
+		}
+		if (generation.get() != loadGeneration) {
+			animesById.invalidate(id);
+			missingAnimeIds.invalidate(id);
+		}
+		return anime;
+	}
+
+	public List<Anime> getByName(String name, Function<String, List<Anime>> animesLoader) {
+		List<Long> cachedIds = animeIdsByName.getIfPresent(name);
+		if (cachedIds != null) {
+			List<Anime> cachedAnimes = new ArrayList<>(cachedIds.size());
+			for (Long id : cachedIds) {
+				Anime cachedAnime = animesById.getIfPresent(id);
+				if (cachedAnime == null) {
+					break;
+				}
+				cachedAnimes.add(cachedAnime);
+			}
+			if (cachedAnimes.size() == cachedIds.size()) {
+				return cachedAnimes;
+			}
+		}
+
+		long loadGeneration = generation.get();
+		List<Anime> animes;
+		try (PrimaryReadContext primaryReadContext = PrimaryReadContext.open()) {
+			animes = animesLoader.apply(name).stream().map(this::detachedCopy).collect(Collectors.toList());
+		}
+		animes.forEach(anime -> animesById.put(anime.getId(), anime));
+		animeIdsByName.put(name, animes.stream().map(Anime::getId).collect(Collectors.toUnmodifiableList()));
+		if (generation.get() != loadGeneration) {
+			animeIdsByName.invalidate(name);
+			animes.forEach(anime -> animesById.invalidate(anime.getId()));
+		}
+		return animes;
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+	public void onAnimeChanging(AnimeChangedEvent animeChangedEvent) {
+		invalidate(animeChangedEvent);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		invalidate(animeChangedEvent);
+	}
+
+	private void invalidate(AnimeChangedEvent animeChangedEvent) {
+		generation.incrementAndGet();
+		animesById.invalidateAll(animeChangedEvent.getIds());
+		missingAnimeIds.invalidateAll(animeChangedEvent.getIds());
+		if (animeChangedEvent.hasKnownNames()) {
+			animeIdsByName.invalidateAll(animeChangedEvent.getNames());
+		} else {
+			animeIdsByName.invalidateAll();
+		}
+	}
+
+	private Anime detachedCopy(Anime anime) {
+		return anime.toBuilder().build();
+	}
+}
@@ -0,0 +1,78 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import br.com.ndrewcoding.springboot2.datasource.PrimaryReadContext;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.repository.AnimeCatalogStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+@Component
+public class AnimeCatalogVersion {
+	private final long ttlNanos;
+	private final Counter hits;
+	private final Counter misses;
+	private final AtomicLong generation = new AtomicLong();
+	private volatile CachedVersion cachedVersion;
+
+	public AnimeCatalogVersion(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.anime-catalog.ttl:30s}") Duration ttl) {
+		this.ttlNanos = ttl.toNanos();
+		this.hits = Counter.builder("cache.gets").tag("cache", "animeCatalogVersion").tag("result", "hit")
+				.register(meterRegistry);
+		this.misses = Counter.builder("cache.gets").tag("cache", "animeCatalogVersion").tag("result", "miss")
+				.register(meterRegistry);
+	}
+
+	public String get(Supplier<AnimeCatalogStats> statsLoader) {
+		CachedVersion snapshot = cachedVersion;
+		if (snapshot != null && System.nanoTime() - snapshot.loadedAt < ttlNanos) {
+			hits.increment();
+			return snapshot.value;
+		}
+		misses.increment();
+
+		long loadGeneration = generation.get();
+		String version;
+		try (PrimaryReadContext primaryReadContext = PrimaryReadContext.open()) {
+			version = toVersion(statsLoader.get());
+		}
+		cachedVersion = new CachedVersion(version, System.nanoTime());
+		if (generation.get() != loadGeneration) {
+			cachedVersion = null;
+		}
+		return version;
+	}
+
+	public void invalidate() {
+		generation.incrementAndGet();
+		cachedVersion = null;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		invalidate();
+	}
+
+	private static String toVersion(AnimeCatalogStats stats) {
+		Instant lastModified = stats.getLastModified();
+		long lastModifiedMicros = lastModified == null ? 0 : ChronoUnit.MICROS.between(Instant.EPOCH, lastModified);
+		return Long.toHexString(stats.getCount()) + "-" + Long.toHexString(lastModifiedMicros);
+	}
+
+	@RequiredArgsConstructor
+	private static class CachedVersion {
+		private final String value;
+		private final long loadedAt;
+	}
+}
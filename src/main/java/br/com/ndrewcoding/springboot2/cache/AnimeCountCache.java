@@ -0,0 +1,70 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import br.com.ndrewcoding.springboot2.datasource.PrimaryReadContext;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+@Component
+public class AnimeCountCache {
+	private final long ttlNanos;
+	private final Counter hits;
+	private final Counter misses;
+	private final AtomicLong generation = new AtomicLong();
+	private volatile CachedCount cachedCount;
+
+	public AnimeCountCache(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.anime-count.ttl:30s}") Duration ttl) {
+		this.ttlNanos = ttl.toNanos();
+		this.hits = Counter.builder("cache.gets").tag("cache", "animeCount").tag("result", "hit")
+				.register(meterRegistry);
+		this.misses = Counter.builder("cache.gets").tag("cache", "animeCount").tag("result", "miss")
+				.register(meterRegistry);
+	}
+
+	public long get(LongSupplier countLoader) {
+		CachedCount snapshot = cachedCount;
+		if (snapshot != null && System.nanoTime() - snapshot.loadedAt < ttlNanos) {
+			hits.increment();
+			return snapshot.value;
+		}
+		misses.increment();
+
+		long loadGeneration = generation.get();
+		long count;
+		try (PrimaryReadContext primaryReadContext = PrimaryReadContext.open()) {
+			count = countLoader.getAsLong();
+		}
+		cachedCount = new CachedCount(count, System.nanoTime());
+		// a write committed while we were counting, so the value we just stored may already be stale
+		if (generation.get() != loadGeneration) {
+			cachedCount = null;
+		}
+		return count;
+	}
+
+	public void invalidate() {
+		generation.incrementAndGet();
+		cachedCount = null;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		invalidate();
+	}
+
+	@RequiredArgsConstructor
+	private static class CachedCount {
+		private final long value;
+		private final long loadedAt;
+	}
+}
@@ -0,0 +1,57 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class AnimeLoadCoalescer {
+	private final SingleFlight<Long, Optional<Anime>> loadsById;
+	private final SingleFlight<String, List<Anime>> loadsByName;
+
+	public AnimeLoadCoalescer(MeterRegistry meterRegistry) {
+		this.loadsById = new SingleFlight<>(meterRegistry, "animeById");
+		this.loadsByName = new SingleFlight<>(meterRegistry, "animeByName");
+	}
+
+	public Optional<Anime> loadById(long id, LongFunction<Optional<Anime>> animeLoader) {
+		if (inReadWriteTransaction()) {
+			return animeLoader.apply(id);
+		}
+		return loadsById.load(id, () -> animeLoader.apply(id));
+	}
+
+	public List<Anime> loadByName(String name, Function<String, List<Anime>> animesLoader) {
+		if (inReadWriteTransaction()) {
+			return animesLoader.apply(name);
+		}
+		return loadsByName.load(name, () -> animesLoader.apply(name));
+	}
+
+	// loads started before the change committed must not be handed to callers arriving after it
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		loadsById.forget(animeChangedEvent.getIds());
+		if (animeChangedEvent.hasKnownNames()) {
+			loadsByName.forget(animeChangedEvent.getNames());
+		} else {
+			loadsByName.forgetAll();
+		}
+	}
+
+	// a read-write transaction may see its own uncommitted changes, so its loads are never shared
+	private boolean inReadWriteTransaction() {
+		return TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+}
@@ -0,0 +1,63 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Component
+public class AnimeResponseCache {
+	private final Cache<String, CachedResponse> responses;
+	private final AtomicLong generation = new AtomicLong();
+
+	public AnimeResponseCache(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.anime-response.maximum-weight:64MB}") DataSize maximumWeight,
+			@Value("${ndrewcoding.cache.anime-response.ttl:10m}") Duration ttl) {
+		this.responses = Caffeine.newBuilder().maximumWeight(maximumWeight.toBytes())
+				.<String, CachedResponse>weigher((key, response) -> key.length() + response.body.length)
+				.expireAfterWrite(ttl).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, responses, "animeResponses");
+	}
+
+	public CachedResponse get(String key) {
+		return responses.getIfPresent(key);
+	}
+
+	public long generation() {
+		return generation.get();
+	}
+
+	public void put(String key, CachedResponse response, long loadGeneration) {
+		responses.put(key, response);
+		// an anime changed while the response was rendered, so it may already be stale
+		if (generation.get() != loadGeneration) {
+			responses.invalidate(key);
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		generation.incrementAndGet();
+		responses.invalidateAll();
+	}
+
+	@Getter
+	@RequiredArgsConstructor
+	public static class CachedResponse {
+		private final String contentType;
+		private final String etag;
+		private final byte[] body;
+	}
+}
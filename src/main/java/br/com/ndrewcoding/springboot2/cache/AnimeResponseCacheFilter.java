@@ -0,0 +1,163 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import br.com.ndrewcoding.springboot2.config.WireFormatNegotiator;
+import br.com.ndrewcoding.springboot2.datasource.PrimaryReadContext;
+import br.com.ndrewcoding.springboot2.service.AnimeService;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class AnimeResponseCacheFilter extends OncePerRequestFilter {
+	private static final Set<String> CACHED_PATHS = Set.of("/animes", "/animes/all");
+	private static final String GZIP = "gzip";
+
+	private final AnimeResponseCache animeResponseCache;
+	private final AnimeService animeService;
+	private final WireFormatNegotiator wireFormatNegotiator;
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.GET.matches(request.getMethod())
+				|| !CACHED_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()))
+				|| !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) || !acceptsOnlyJsonOrSmile(request)
+				|| request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				|| request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String key = String.join("|", request.getRequestURI(), String.valueOf(request.getQueryString()),
+				wireFormatNegotiator.negotiate(new ServletWebRequest(request, response)).toString(),
+				animeService.getCatalogVersion());
+		AnimeResponseCache.CachedResponse cachedResponse = animeResponseCache.get(key);
+		if (cachedResponse != null) {
+			write(cachedResponse, response);
+			return;
+		}
+
+		long loadGeneration = animeResponseCache.generation();
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		// the rendered response is served to every user, so it must not capture replica lag
+		try (PrimaryReadContext primaryReadContext = PrimaryReadContext.open()) {
+			filterChain.doFilter(request, responseWrapper);
+		}
+		if (responseWrapper.getStatus() != HttpStatus.OK.value() || !isJsonOrSmile(responseWrapper.getContentType())) {
+			responseWrapper.copyBodyToResponse();
+			return;
+		}
+
+		cachedResponse = new AnimeResponseCache.CachedResponse(responseWrapper.getContentType(),
+				response.getHeader(HttpHeaders.ETAG), gzip(responseWrapper.getContentAsByteArray()));
+		animeResponseCache.put(key, cachedResponse, loadGeneration);
+		write(cachedResponse, response);
+	}
+
+	private static void write(AnimeResponseCache.CachedResponse cachedResponse, HttpServletResponse response)
+			throws IOException {
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(cachedResponse.getContentType());
+		response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+		addVary(response, HttpHeaders.ACCEPT);
+		addVary(response, HttpHeaders.ACCEPT_ENCODING);
+		// the compressed bytes are a different representation, so only a weak validator still applies
+		if (cachedResponse.getEtag() != null) {
+			response.setHeader(HttpHeaders.ETAG, cachedResponse.getEtag().startsWith("W/") ? cachedResponse.getEtag()
+					: "W/" + cachedResponse.getEtag());
+		}
+		response.setContentLength(cachedResponse.getBody().length);
+		response.getOutputStream().write(cachedResponse.getBody());
+	}
+
+	private static void addVary(HttpServletResponse response, String header) {
+		if (!response.getHeaders(HttpHeaders.VARY).contains(header)) {
+			response.addHeader(HttpHeaders.VARY, header);
+		}
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write(body);
+		}
+		return compressed.toByteArray();
+	}
+
+	private static boolean isJsonOrSmile(String contentType) {
+		return contentType != null && isJsonOrSmile(MediaType.parseMediaType(contentType));
+	}
+
+	private static boolean isJsonOrSmile(MediaType mediaType) {
+		return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)
+				|| WireFormatNegotiator.APPLICATION_SMILE.isCompatibleWith(mediaType);
+	}
+
+	// an explicit gzip coding wins over the wildcard, and a zero quality refuses the coding
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Double gzipQuality = null;
+		Double wildcardQuality = null;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			if (GZIP.equalsIgnoreCase(name)) {
+				gzipQuality = quality(parameters);
+			} else if ("*".equals(name)) {
+				wildcardQuality = quality(parameters);
+			}
+		}
+		Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+		return quality != null && quality > 0;
+	}
+
+	private static double quality(String[] parameters) {
+		for (int i = 1; i < parameters.length; i++) {
+			String parameter = parameters[i].trim();
+			if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+				try {
+					return Double.parseDouble(parameter.substring(2).trim());
+				} catch (NumberFormatException exception) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	// anything that could negotiate another representation, such as ndjson streaming, is left to the controller
+	private static boolean acceptsOnlyJsonOrSmile(HttpServletRequest request) {
+		String format = request.getParameter("format");
+		if (format != null && !"json".equals(format) && !"smile".equals(format)) {
+			return false;
+		}
+		try {
+			List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT));
+			return acceptedMediaTypes.stream().allMatch(AnimeResponseCacheFilter::isJsonOrSmile);
+		} catch (InvalidMediaTypeException exception) {
+			return false;
+		}
+	}
+}
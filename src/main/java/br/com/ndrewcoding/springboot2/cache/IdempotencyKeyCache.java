@@ -0,0 +1,72 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ndrewcoding.springboot2.exception.BadRequestException;
+import br.com.ndrewcoding.springboot2.service.AnimeSaveResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class IdempotencyKeyCache {
+	private final AsyncCache<String, AnimeSaveResult> animesByIdempotencyKey;
+
+	public IdempotencyKeyCache(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.idempotency.maximum-size:10000}") long maximumSize,
+			@Value("${ndrewcoding.cache.idempotency.ttl:24h}") Duration ttl) {
+		this.animesByIdempotencyKey = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl)
+				.recordStats().buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, animesByIdempotencyKey, "animesByIdempotencyKey");
+	}
+
+	public AnimeSaveResult get(String idempotencyKey, String name, Supplier<AnimeSaveResult> animeSaver) {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return animeSaver.get();
+		}
+		// the save runs outside the cache's compute, so its transaction does not hold the lock of other keys
+		CompletableFuture<AnimeSaveResult> save = new CompletableFuture<>();
+		CompletableFuture<AnimeSaveResult> firstSave = animesByIdempotencyKey.asMap().putIfAbsent(idempotencyKey, save);
+		if (firstSave == null) {
+			firstSave = save;
+			try {
+				save.complete(copy(animeSaver.get()));
+			} catch (RuntimeException | Error exception) {
+				// a failed future is dropped by the cache, so the key can be retried
+				save.completeExceptionally(exception);
+				throw exception;
+			}
+		}
+		AnimeSaveResult animeSaveResult = join(firstSave);
+		if (!animeSaveResult.getAnime().getName().equals(name)) {
+			throw new BadRequestException("Idempotency-Key was already used for a different anime");
+		}
+		return copy(animeSaveResult);
+	}
+
+	private static AnimeSaveResult copy(AnimeSaveResult animeSaveResult) {
+		return new AnimeSaveResult(animeSaveResult.getAnime().toBuilder().build(), animeSaveResult.isCreated());
+	}
+
+	private static AnimeSaveResult join(CompletableFuture<AnimeSaveResult> save) {
+		try {
+			return save.join();
+		} catch (CompletionException exception) {
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			if (exception.getCause() instanceof Error) {
+				throw (Error) exception.getCause();
+			}
+			throw exception;
+		}
+	}
+}
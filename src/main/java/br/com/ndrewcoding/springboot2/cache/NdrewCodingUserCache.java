@@ -0,0 +1,60 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.event.NdrewCodingUserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class NdrewCodingUserCache implements UserCache {
+	private final Cache<String, UserDetails> usersByUsername;
+
+	public NdrewCodingUserCache(MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.cache.user.maximum-size:1000}") long maximumSize,
+			@Value("${ndrewcoding.cache.user.ttl:5m}") Duration ttl) {
+		this.usersByUsername = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, usersByUsername, "usersByUsername");
+	}
+
+	@Override
+	public UserDetails getUserFromCache(String username) {
+		return usersByUsername.getIfPresent(username);
+	}
+
+	@Override
+	public void putUserInCache(UserDetails user) {
+		// in-memory users need no cache, and their User instances get the password erased after authentication
+		if (user instanceof NdrewCodingUser) {
+			usersByUsername.put(user.getUsername(), user);
+		}
+	}
+
+	@Override
+	public void removeUserFromCache(String username) {
+		usersByUsername.invalidate(username);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onUserChanged(NdrewCodingUserChangedEvent ndrewCodingUserChangedEvent) {
+		if (ndrewCodingUserChangedEvent.getUsername() != null) {
+			removeUserFromCache(ndrewCodingUserChangedEvent.getUsername());
+		}
+		// the username itself may have changed, so also drop whatever was cached under the old one
+		if (ndrewCodingUserChangedEvent.getId() != null) {
+			usersByUsername.asMap().values().removeIf(user -> user instanceof NdrewCodingUser
+					&& ndrewCodingUserChangedEvent.getId().equals(((NdrewCodingUser) user).getId()));
+		}
+	}
+}
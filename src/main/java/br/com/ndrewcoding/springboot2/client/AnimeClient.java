@@ -0,0 +1,79 @@
+package br.com.ndrewcoding.springboot2.client;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.wrapper.PageableResponse;
+
+/**
+ * Calls the anime endpoints of another instance in the given wire format, {@link #APPLICATION_SMILE} for the compact
+ * binary one or {@link MediaType#APPLICATION_JSON}. The builder carries the root uri and the credentials.
+ */
+public class AnimeClient {
+	public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+	private static final ParameterizedTypeReference<PageableResponse<Anime>> ANIME_PAGE =
+			new ParameterizedTypeReference<>() {
+			};
+
+	private final RestTemplate restTemplate;
+	private final MediaType mediaType;
+
+	public AnimeClient(RestTemplateBuilder restTemplateBuilder, MediaType mediaType) {
+		this.restTemplate = restTemplateBuilder.build();
+		this.mediaType = mediaType;
+	}
+
+	public PageableResponse<Anime> list(int page, int size) {
+		return restTemplate.exchange("/animes?page={page}&size={size}", HttpMethod.GET, entity(null), ANIME_PAGE, page,
+				size).getBody();
+	}
+
+	public List<Anime> listAll() {
+		Anime[] animes = restTemplate.exchange("/animes/all", HttpMethod.GET, entity(null), Anime[].class).getBody();
+		return animes == null ? List.of() : Arrays.asList(animes);
+	}
+
+	public Anime findById(long id) {
+		return restTemplate.exchange("/animes/{id}", HttpMethod.GET, entity(null), Anime.class, id).getBody();
+	}
+
+	public List<Anime> findByName(String name) {
+		Anime[] animes = restTemplate.exchange("/animes/find?name={name}", HttpMethod.GET, entity(null), Anime[].class,
+				name).getBody();
+		return animes == null ? List.of() : Arrays.asList(animes);
+	}
+
+	public Anime save(AnimePostRequestBody animePostRequestBody) {
+		return restTemplate.exchange("/animes/admin", HttpMethod.POST, entity(animePostRequestBody), Anime.class)
+				.getBody();
+	}
+
+	public void replace(AnimePutRequestBody animePutRequestBody) {
+		restTemplate.exchange("/animes/admin", HttpMethod.PUT, entity(animePutRequestBody), Void.class);
+	}
+
+	public void delete(long id) {
+		restTemplate.exchange("/animes/admin/{id}", HttpMethod.DELETE, entity(null), Void.class, id);
+	}
+
+	// the entity headers replace the Accept header RestTemplate derives from every converter able to read the type
+	private HttpEntity<Object> entity(Object body) {
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setAccept(List.of(mediaType));
+		if (body != null) {
+			httpHeaders.setContentType(mediaType);
+		}
+		return new HttpEntity<>(body, httpHeaders);
+	}
+}
@@ -0,0 +1,111 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.mapping.Column;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Brings an anime table created by an older mapping in line with the current one before anything writes to it. Ids
+ * used to come from an identity column, so the {@code anime_sequence} that {@code ddl-auto} creates next to existing
+ * rows starts below them, and {@code version} and {@code updated_at} were added as nullable columns that are
+ * {@code null} on the rows that already existed, which makes Spring Data treat those animes as new and leaves them
+ * without an ETag.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class AnimeSchemaInitializer implements InitializingBean {
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManagerFactory entityManagerFactory;
+
+	@Override
+	public void afterPropertiesSet() {
+		seedIdSequence();
+		backfillVersionColumns();
+	}
+
+	void backfillVersionColumns() {
+		int versions = jdbcTemplate.update("update anime set version = 0 where version is null");
+		int timestamps = jdbcTemplate.update("update anime set updated_at = ? where updated_at is null",
+				Timestamp.from(Instant.now()));
+		if (versions > 0 || timestamps > 0) {
+			log.info("Backfilled the version of {} and the update time of {} existing animes", versions, timestamps);
+		}
+
+		requireNotNull("version", Types.BIGINT);
+		requireNotNull("updated_at", Types.TIMESTAMP);
+	}
+
+	private void requireNotNull(String column, int sqlType) {
+		Boolean nullable = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			DatabaseMetaData metaData = connection.getMetaData();
+			String table = metaData.storesUpperCaseIdentifiers() ? "ANIME" : "anime";
+			String columnName = metaData.storesUpperCaseIdentifiers() ? column.toUpperCase() : column;
+			try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, columnName)) {
+				return columns.next() && columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+			}
+		});
+		if (!Boolean.TRUE.equals(nullable)) {
+			return;
+		}
+
+		Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		if (dialect instanceof MySQLDialect) {
+			jdbcTemplate.execute("alter table anime modify column " + column + " " + dialect.getTypeName(sqlType,
+					Column.DEFAULT_LENGTH, Column.DEFAULT_PRECISION, Column.DEFAULT_SCALE) + " not null");
+		} else {
+			jdbcTemplate.execute("alter table anime alter column " + column + " set not null");
+		}
+		log.info("Made anime.{} not null", column);
+	}
+
+	void seedIdSequence() {
+		Long maxId = jdbcTemplate.queryForObject("select max(id) from anime", Long.class);
+		if (maxId == null) {
+			return;
+		}
+
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		DatabaseStructure databaseStructure = ((SequenceStyleGenerator) sessionFactory.getMetamodel()
+				.entityPersister(Anime.class).getIdentifierGenerator()).getDatabaseStructure();
+		// the pooled optimizer hands out the block of ids ending at the value it reads
+		long nextValue = maxId + databaseStructure.getIncrementSize();
+
+		if (databaseStructure.isPhysicalSequence()) {
+			Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+			Long currentValue = jdbcTemplate.queryForObject(
+					dialect.getSequenceNextValString(databaseStructure.getName()), Long.class);
+			if (currentValue != null && currentValue < nextValue) {
+				jdbcTemplate.execute("alter sequence " + databaseStructure.getName() + " restart with " + nextValue);
+				log.info("Moved {} from {} to {} past the existing animes", databaseStructure.getName(), currentValue,
+						nextValue);
+			}
+		} else {
+			int updated = jdbcTemplate.update("update " + databaseStructure.getName() + " set "
+					+ SequenceStyleGenerator.DEF_VALUE_COLUMN + " = ? where " + SequenceStyleGenerator.DEF_VALUE_COLUMN
+					+ " < ?", nextValue, nextValue);
+			if (updated > 0) {
+				log.info("Moved {} to {} past the existing animes", databaseStructure.getName(), nextValue);
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import br.com.ndrewcoding.springboot2.metrics.QueryMetricsListener;
+import br.com.ndrewcoding.springboot2.metrics.RowCountingResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+@Configuration
+public class DataSourceProxyConfig {
+	@Bean
+	public static BeanPostProcessor dataSourceProxyBeanPostProcessor(
+			ObjectProvider<QueryMetricsListener> queryMetricsListenerProvider) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				// routing data sources only delegate to pools that are proxied themselves
+				if (!(bean instanceof DataSource) || bean instanceof DelegatingDataSource) {
+					return bean;
+				}
+				QueryMetricsListener queryMetricsListener = queryMetricsListenerProvider.getObject();
+				ProxyDataSource proxyDataSource = ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+						.listener(queryMetricsListener).proxyResultSet(new RowCountingResultSetProxyLogicFactory()).build();
+
+				// a class proxy keeps the pool type visible, so pool metrics and health still find it
+				ProxyFactory proxyFactory = new ProxyFactory(bean);
+				proxyFactory.setProxyTargetClass(true);
+				proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+					if (!"getConnection".equals(invocation.getMethod().getName())) {
+						return invocation.proceed();
+					}
+					Object[] arguments = invocation.getArguments();
+					return arguments.length == 0 ? proxyDataSource.getConnection()
+							: proxyDataSource.getConnection((String) arguments[0], (String) arguments[1]);
+				});
+				return proxyFactory.getProxy();
+			}
+		};
+	}
+}
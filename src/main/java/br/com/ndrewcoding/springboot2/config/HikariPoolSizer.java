@@ -0,0 +1,61 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Component
+public class HikariPoolSizer implements BeanPostProcessor {
+	private static final int MINIMUM_POOL_SIZE = 2;
+
+	private final boolean autoSize;
+	private final int cores;
+	private final int effectiveSpindles;
+	private final int databaseMaxConnections;
+	private final int reservedConnections;
+	private final int instances;
+
+	@Autowired
+	public HikariPoolSizer(@Value("${ndrewcoding.datasource.pool.auto-size:false}") boolean autoSize,
+			@Value("${ndrewcoding.datasource.pool.effective-spindles:1}") int effectiveSpindles,
+			@Value("${ndrewcoding.datasource.pool.database-max-connections:151}") int databaseMaxConnections,
+			@Value("${ndrewcoding.datasource.pool.reserved-connections:10}") int reservedConnections,
+			@Value("${ndrewcoding.datasource.pool.instances:1}") int instances) {
+		this(autoSize, Runtime.getRuntime().availableProcessors(), effectiveSpindles, databaseMaxConnections,
+				reservedConnections, instances);
+	}
+
+	HikariPoolSizer(boolean autoSize, int cores, int effectiveSpindles, int databaseMaxConnections,
+			int reservedConnections, int instances) {
+		this.autoSize = autoSize;
+		this.cores = cores;
+		this.effectiveSpindles = effectiveSpindles;
+		this.databaseMaxConnections = databaseMaxConnections;
+		this.reservedConnections = reservedConnections;
+		this.instances = instances;
+	}
+
+	public int poolSize() {
+		int fromCores = cores * 2 + effectiveSpindles;
+		int fromDatabase = (databaseMaxConnections - reservedConnections) / Math.max(1, instances);
+		return Math.max(MINIMUM_POOL_SIZE, Math.min(fromCores, fromDatabase));
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		if (autoSize && bean instanceof HikariDataSource) {
+			HikariDataSource hikariDataSource = (HikariDataSource) bean;
+			int poolSize = poolSize();
+			hikariDataSource.setMaximumPoolSize(poolSize);
+			hikariDataSource.setMinimumIdle(poolSize);
+			log.info("Sized connection pool '{}' to {} connections for {} cores", beanName, poolSize, cores);
+		}
+		return bean;
+	}
+}
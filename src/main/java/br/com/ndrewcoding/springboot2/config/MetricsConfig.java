@@ -0,0 +1,23 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import br.com.ndrewcoding.springboot2.metrics.JdbcRequestStatistics;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	// Boot applies it to the executor of Spring MVC, so the queries of a streaming response count towards its request
+	@Bean
+	public TaskDecorator jdbcRequestStatisticsTaskDecorator() {
+		return JdbcRequestStatistics::propagate;
+	}
+}
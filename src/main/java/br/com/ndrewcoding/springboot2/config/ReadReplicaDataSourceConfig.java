@@ -0,0 +1,74 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import java.sql.Connection;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import br.com.ndrewcoding.springboot2.datasource.ReadWriteRoutingDataSource;
+import br.com.ndrewcoding.springboot2.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ndrewcoding.datasource.replica", name = "url")
+public class ReadReplicaDataSourceConfig {
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+		return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@ConfigurationProperties("ndrewcoding.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties, Environment environment,
+			@Value("${ndrewcoding.datasource.replica.url}") String url,
+			@Value("${ndrewcoding.datasource.replica.username:${spring.datasource.username:}}") String username,
+			@Value("${ndrewcoding.datasource.replica.password:${spring.datasource.password:}}") String password) {
+		HikariDataSource replicaDataSource = DataSourceBuilder.create(dataSourceProperties.getClassLoader())
+				.type(HikariDataSource.class).url(url).username(username).password(password).build();
+		// the primary's pool settings, such as the prod timeouts and driver options, apply unless overridden
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replicaDataSource));
+		replicaDataSource.setPoolName("ndrewcoding-replica");
+		replicaDataSource.setReadOnly(true);
+		return replicaDataSource;
+	}
+
+	@Bean
+	public ReadYourWritesTracker readYourWritesTracker(
+			@Value("${ndrewcoding.datasource.replica.read-your-writes-window:2s}") Duration window,
+			@Value("${ndrewcoding.datasource.replica.read-your-writes-maximum-size:10000}") long maximumSize) {
+		return new ReadYourWritesTracker(window, maximumSize);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(MeterRegistry meterRegistry,
+			@Lazy @Qualifier("primaryDataSource") DataSource primaryDataSource,
+			@Lazy @Qualifier("replicaDataSource") DataSource replicaDataSource,
+			ReadYourWritesTracker readYourWritesTracker) {
+		// the pools are resolved on first use, since initializing a data source bean looks up this one
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+		dataSource.setDefaultAutoCommit(true);
+		dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		dataSource.setTargetDataSource(new ReadWriteRoutingDataSource(meterRegistry, primaryDataSource,
+				replicaDataSource, readYourWritesTracker));
+		return dataSource;
+	}
+}
@@ -1,36 +1,123 @@
 package br.com.ndrewcoding.springboot2.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import br.com.ndrewcoding.springboot2.cache.NdrewCodingUserCache;
+import br.com.ndrewcoding.springboot2.security.CachingPasswordEncoder;
+import br.com.ndrewcoding.springboot2.security.CompositeUserDetailsService;
+import br.com.ndrewcoding.springboot2.security.DatabaseUnavailableEntryPoint;
+import br.com.ndrewcoding.springboot2.security.TokenAuthenticationFilter;
+import br.com.ndrewcoding.springboot2.security.TokenService;
 import br.com.ndrewcoding.springboot2.service.NdrewCodingUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
-@RequiredArgsConstructor
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 	private final NdrewCodingUserDetailsService ndrewCodingUserDetailsService;
+	private final NdrewCodingUserCache ndrewCodingUserCache;
+	private final MeterRegistry meterRegistry;
+	private final long passwordCacheMaximumSize;
+	private final Duration passwordCacheTtl;
+	private final boolean stateless;
+
+	public SecurityConfig(NdrewCodingUserDetailsService ndrewCodingUserDetailsService,
+			NdrewCodingUserCache ndrewCodingUserCache, MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.security.password-cache.maximum-size:10000}") long passwordCacheMaximumSize,
+			@Value("${ndrewcoding.security.password-cache.ttl:5m}") Duration passwordCacheTtl,
+			@Value("${ndrewcoding.security.stateless:false}") boolean stateless) {
+		this.ndrewCodingUserDetailsService = ndrewCodingUserDetailsService;
+		this.ndrewCodingUserCache = ndrewCodingUserCache;
+		this.meterRegistry = meterRegistry;
+		this.passwordCacheMaximumSize = passwordCacheMaximumSize;
+		this.passwordCacheTtl = passwordCacheTtl;
+		this.stateless = stateless;
+	}
 
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
-		http.csrf().disable().authorizeRequests().antMatchers("/animes/admin/**").hasRole("ADMIN")
+		authorizeRequests(http.csrf().disable());
+		if (stateless) {
+			http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+		} else {
+			http.formLogin();
+		}
+		BasicAuthenticationEntryPoint basicAuthenticationEntryPoint = new BasicAuthenticationEntryPoint();
+		basicAuthenticationEntryPoint.setRealmName("Realm");
+		http.httpBasic().authenticationEntryPoint(new DatabaseUnavailableEntryPoint(basicAuthenticationEntryPoint));
+	}
+
+	private static void authorizeRequests(HttpSecurity http) throws Exception {
+		http.authorizeRequests()
+				.antMatchers("/animes/admin/**", "/animes/async/admin/**").hasRole("ADMIN")
 				.antMatchers("/animes/**").hasRole("USER").antMatchers("/actuator/**").permitAll().anyRequest()
-				.authenticated().and().formLogin().and().httpBasic();
+				.authenticated();
+	}
+
+	/**
+	 * Bearer requests get a chain of their own that never keeps a session, whatever the {@code stateless} flag says
+	 * for HTTP Basic, so a token is checked on every request instead of being traded for a session.
+	 */
+	@Configuration
+	@Order(1)
+	@RequiredArgsConstructor
+	static class BearerTokenSecurityConfig extends WebSecurityConfigurerAdapter {
+		private final TokenService tokenService;
+		private final MeterRegistry meterRegistry;
+
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			// tokens are only issued against the password, otherwise a token could be renewed by itself forever
+			RequestMatcher tokenIssuing = new AntPathRequestMatcher("/auth/token");
+			http.requestMatcher(new AndRequestMatcher(TokenAuthenticationFilter.BEARER_REQUESTS,
+					new NegatedRequestMatcher(tokenIssuing))).csrf().disable()
+					.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+					.addFilterBefore(new TokenAuthenticationFilter(tokenService, meterRegistry, tokenIssuing),
+							AnonymousAuthenticationFilter.class)
+					.exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
+			authorizeRequests(http);
+		}
 	}
 
 	@Override
 	protected void configure(AuthenticationManagerBuilder auth) throws Exception {
 		PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
 		System.out.println(passwordEncoder.encode("ndrewcoding"));
-		auth.inMemoryAuthentication().withUser("andrew2").password(passwordEncoder.encode("ndrewcoding"))
-				.roles("USER", "ADMIN").and().withUser("bunro2").password(passwordEncoder.encode("ndrewcoding"))
-				.roles("USER");
-		auth.userDetailsService(ndrewCodingUserDetailsService).passwordEncoder(passwordEncoder);
+		InMemoryUserDetailsManager inMemoryUsers = new InMemoryUserDetailsManager(
+				User.withUsername("andrew2").password(passwordEncoder.encode("ndrewcoding")).roles("USER", "ADMIN")
+						.build(),
+				User.withUsername("bunro2").password(passwordEncoder.encode("ndrewcoding")).roles("USER").build());
+		// one provider for both sources, so neither kind of user pays bcrypt for not being found in the other one
+		DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+		daoAuthenticationProvider
+				.setUserDetailsService(new CompositeUserDetailsService(inMemoryUsers, ndrewCodingUserDetailsService));
+		daoAuthenticationProvider.setPasswordEncoder(
+				new CachingPasswordEncoder(meterRegistry, passwordEncoder, passwordCacheMaximumSize, passwordCacheTtl));
+		daoAuthenticationProvider.setUserCache(ndrewCodingUserCache);
+		auth.authenticationProvider(daoAuthenticationProvider);
 	}
 }
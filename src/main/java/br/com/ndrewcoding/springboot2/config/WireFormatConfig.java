@@ -0,0 +1,19 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+@Configuration
+public class WireFormatConfig {
+	// built from Boot's builder so Smile payloads carry the same fields and date format as the JSON ones
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+			Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+		return new MappingJackson2SmileHttpMessageConverter(
+				jackson2ObjectMapperBuilder.factory(new SmileFactory()).build());
+	}
+}
@@ -0,0 +1,56 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+/**
+ * Tells ahead of rendering whether a request will be answered in JSON or in Smile, so entity tags and cached bodies
+ * can tell the two representations apart. The first requested type wins as it does for Spring MVC, and a wildcard
+ * gets JSON since its converter comes first.
+ */
+@Component
+public class WireFormatNegotiator {
+	public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+	private final ContentNegotiationManager contentNegotiationManager;
+
+	public WireFormatNegotiator(
+			@Qualifier("mvcContentNegotiationManager") ContentNegotiationManager contentNegotiationManager) {
+		this.contentNegotiationManager = contentNegotiationManager;
+	}
+
+	public MediaType negotiate(NativeWebRequest webRequest) {
+		List<MediaType> requestedMediaTypes;
+		try {
+			requestedMediaTypes = contentNegotiationManager.resolveMediaTypes(webRequest);
+		} catch (HttpMediaTypeNotAcceptableException exception) {
+			return MediaType.APPLICATION_JSON;
+		}
+		MediaType.sortBySpecificityAndQuality(requestedMediaTypes);
+		for (MediaType requestedMediaType : requestedMediaTypes) {
+			if (requestedMediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+				return MediaType.APPLICATION_JSON;
+			}
+			if (requestedMediaType.isCompatibleWith(APPLICATION_SMILE)) {
+				return APPLICATION_SMILE;
+			}
+		}
+		return MediaType.APPLICATION_JSON;
+	}
+
+	// the JSON tags stay as they were, so validators held by existing clients keep matching
+	public String eTag(String eTag, NativeWebRequest webRequest) {
+		return eTag + eTagSuffix(webRequest);
+	}
+
+	public String eTagSuffix(NativeWebRequest webRequest) {
+		return APPLICATION_SMILE.equals(negotiate(webRequest)) ? "-smile" : "";
+	}
+}
@@ -2,10 +2,16 @@ package br.com.ndrewcoding.springboot2.configurer;
 
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -16,4 +22,18 @@ public class NdrewCodingWebMvcConfigurer implements WebMvcConfigurer {
 		pageHandler.setFallbackPageable(PageRequest.of(0, 5));
 		resolvers.add(pageHandler);
 	}
+
+	// the animes are negotiated between JSON, Smile and ndjson, so shared caches must key them on the Accept header
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+					response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+				}
+				return true;
+			}
+		}).addPathPatterns("/animes", "/animes/**");
+	}
 }
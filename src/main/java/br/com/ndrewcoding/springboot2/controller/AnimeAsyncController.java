@@ -0,0 +1,126 @@
+package br.com.ndrewcoding.springboot2.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.validation.Valid;
+
+import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import br.com.ndrewcoding.springboot2.config.WireFormatNegotiator;
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.service.AnimeAsyncService;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Same endpoints as {@link AnimeController} served from {@link AnimeAsyncService}. Conditional GETs are answered by
+ * Spring MVC from the ETag of the returned entity once the future completes, the catalog version is only compared up
+ * front to skip loading a list the client already has. The wire format is negotiated on the servlet thread, before
+ * the request goes async, so the tags of JSON and Smile bodies differ.
+ */
+@RestController
+@RequestMapping("animes/async")
+@RequiredArgsConstructor
+public class AnimeAsyncController {
+	private final AnimeAsyncService animeAsyncService;
+	private final WireFormatNegotiator wireFormatNegotiator;
+
+	@GetMapping
+	@Operation(summary = "List all Animes paginated without holding a servlet thread", description = "Same parameters as the paginated list, answers 503 when the database executor is saturated", tags = {
+			"anime-async" })
+	public CompletableFuture<ResponseEntity<Page<Anime>>> list(@ParameterObject Pageable pageable,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			NativeWebRequest webRequest) {
+		String eTagSuffix = wireFormatNegotiator.eTagSuffix(webRequest);
+		return animeAsyncService.getCatalogVersion().thenApply(catalogVersion -> catalogVersion + eTagSuffix)
+				.thenCompose(eTag -> matches(ifNoneMatch, eTag)
+						? CompletableFuture.completedFuture(ResponseEntity.ok().eTag(eTag).build())
+						: animeAsyncService.listAll(pageable).thenApply(page -> ResponseEntity.ok().eTag(eTag).body(page)));
+	}
+
+	@GetMapping(path = "/slice")
+	public CompletableFuture<Slice<Anime>> listSlice(@ParameterObject Pageable pageable) {
+		return animeAsyncService.listAllSlice(pageable);
+	}
+
+	@GetMapping(path = "/seek")
+	public CompletableFuture<CursorPage<Anime>> listByCursor(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "id") String sort, @RequestParam(defaultValue = "ASC") String direction,
+			@RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "true") boolean count) {
+		return animeAsyncService.listAllByCursor(cursor, sort, direction, size, count);
+	}
+
+	@GetMapping(path = "/all")
+	public CompletableFuture<ResponseEntity<List<Anime>>> listAll(
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			NativeWebRequest webRequest) {
+		String eTagSuffix = wireFormatNegotiator.eTagSuffix(webRequest);
+		return animeAsyncService.getCatalogVersion().thenApply(catalogVersion -> catalogVersion + eTagSuffix)
+				.thenCompose(eTag -> matches(ifNoneMatch, eTag)
+						? CompletableFuture.completedFuture(ResponseEntity.ok().eTag(eTag).build())
+						: animeAsyncService.listAllNonPageable()
+								.thenApply(animes -> ResponseEntity.ok().eTag(eTag).body(animes)));
+	}
+
+	@GetMapping(path = "/{id}")
+	public CompletableFuture<ResponseEntity<Anime>> findAnimeById(@PathVariable long id, NativeWebRequest webRequest) {
+		String eTagSuffix = wireFormatNegotiator.eTagSuffix(webRequest);
+		return animeAsyncService.findAnimeByIdOrThrowBadRequestException(id).thenApply(anime -> ResponseEntity.ok()
+				.eTag(anime.getId() + "-" + anime.getVersion() + eTagSuffix)
+				.lastModified(anime.getUpdatedAt() == null ? -1 : anime.getUpdatedAt().toEpochMilli()).body(anime));
+	}
+
+	@GetMapping(path = "/find")
+	public CompletableFuture<List<Anime>> findAnimeByName(@RequestParam String name) {
+		return animeAsyncService.findByName(name);
+	}
+
+	@GetMapping(path = "/search")
+	public CompletableFuture<Page<Anime>> search(@RequestParam String q, @ParameterObject Pageable pageable) {
+		return animeAsyncService.search(q, pageable);
+	}
+
+	@PostMapping(path = "/admin")
+	public CompletableFuture<ResponseEntity<Anime>> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
+		return animeAsyncService.save(animePostRequestBody)
+				.thenApply(animeSaveResult -> new ResponseEntity<>(animeSaveResult.getAnime(),
+						animeSaveResult.isCreated() ? HttpStatus.CREATED : HttpStatus.OK));
+	}
+
+	@PutMapping(path = "/admin")
+	public CompletableFuture<ResponseEntity<Void>> replace(@RequestBody AnimePutRequestBody animePutRequestBody) {
+		return animeAsyncService.replace(animePutRequestBody)
+				.thenApply(replaced -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+	}
+
+	@DeleteMapping(path = "/admin/{id}")
+	public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable long id) {
+		return animeAsyncService.delete(id).thenApply(deleted -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+	}
+
+	// entity tags cannot contain quotes, so finding the quoted tag in the header is an exact match, weak or strong
+	private static boolean matches(String ifNoneMatch, String eTag) {
+		return ifNoneMatch != null && ifNoneMatch.contains("\"" + eTag + "\"");
+	}
+}
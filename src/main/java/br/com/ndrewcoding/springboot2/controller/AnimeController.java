@@ -1,5 +1,11 @@
 package br.com.ndrewcoding.springboot2.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import javax.validation.Valid;
@@ -7,7 +13,9 @@ import javax.validation.Valid;
 import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,14 +25,31 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.ndrewcoding.springboot2.cache.IdempotencyKeyCache;
+import br.com.ndrewcoding.springboot2.config.WireFormatNegotiator;
 import br.com.ndrewcoding.springboot2.domain.Anime;
 import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
 import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkResponse;
+import br.com.ndrewcoding.springboot2.service.AnimeBulkService;
+import br.com.ndrewcoding.springboot2.service.AnimeSaveResult;
 import br.com.ndrewcoding.springboot2.service.AnimeService;
+import br.com.ndrewcoding.springboot2.util.NdjsonIterator;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -34,23 +59,78 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("animes")
 @RequiredArgsConstructor
 public class AnimeController {
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
 	private final AnimeService animeService;
+	private final AnimeBulkService animeBulkService;
+	private final IdempotencyKeyCache idempotencyKeyCache;
+	private final ObjectMapper objectMapper;
+	private final WireFormatNegotiator wireFormatNegotiator;
 
 	@GetMapping
 	@Operation(summary = "List all Animes paginated", description = "The default size is 20, use the parameter size to change the default value", tags = {
 			"anime" })
-	public ResponseEntity<Page<Anime>> list(@ParameterObject Pageable pageable) {
+	public ResponseEntity<Page<Anime>> list(@ParameterObject Pageable pageable, NativeWebRequest webRequest) {
+		if (webRequest.checkNotModified(wireFormatNegotiator.eTag(animeService.getCatalogVersion(), webRequest))) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+		}
 		return ResponseEntity.ok(animeService.listAll(pageable));
 	}
 
+	@GetMapping(path = "/slice")
+	@Operation(summary = "List Animes paginated without the total count", description = "Same parameters as the paginated list, the response only tells whether there is a next page", tags = {
+			"anime" })
+	public ResponseEntity<Slice<Anime>> listSlice(@ParameterObject Pageable pageable) {
+		return ResponseEntity.ok(animeService.listAllSlice(pageable));
+	}
+
+	@GetMapping(path = "/seek")
+	@Operation(summary = "List Animes with keyset pagination", description = "Pass nextCursor or prevCursor from the previous response as the cursor parameter, sort accepts id or name and count=false skips the total", tags = {
+			"anime" })
+	public ResponseEntity<CursorPage<Anime>> listByCursor(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "id") String sort, @RequestParam(defaultValue = "ASC") String direction,
+			@RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "true") boolean count) {
+		return ResponseEntity.ok(animeService.listAllByCursor(cursor, sort, direction, size, count));
+	}
+
 	@GetMapping(path = "/all")
-	public ResponseEntity<List<Anime>> listAll() {
+	public ResponseEntity<List<Anime>> listAll(NativeWebRequest webRequest) {
+		if (webRequest.checkNotModified(wireFormatNegotiator.eTag(animeService.getCatalogVersion(), webRequest))) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+		}
 		return ResponseEntity.ok(animeService.listAllNonPageable());
 	}
 
+	@GetMapping(path = "/all", produces = APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Stream all Animes as newline-delimited JSON", description = "Selected with the header Accept: application/x-ndjson or the parameter format=ndjson", tags = {
+			"anime" })
+	public ResponseEntity<StreamingResponseBody> streamAll() {
+		ObjectWriter animeWriter = objectMapper.writerFor(Anime.class).withRootValueSeparator("\n")
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+		return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(outputStream -> {
+			try (SequenceWriter sequenceWriter = animeWriter.writeValues(outputStream)) {
+				animeService.streamAll(anime -> {
+					try {
+						sequenceWriter.write(anime);
+					} catch (IOException exception) {
+						throw new UncheckedIOException(exception);
+					}
+				});
+			}
+		});
+	}
+
 	@GetMapping(path = "/{id}")
-	public ResponseEntity<Anime> findAnimeById(@PathVariable long id) {
-		return ResponseEntity.ok(animeService.findAnimeByIdOrThrowBadRequestException(id));
+	public ResponseEntity<Anime> findAnimeById(@PathVariable long id, NativeWebRequest webRequest) {
+		Anime anime = animeService.findAnimeByIdOrThrowBadRequestException(id);
+		long lastModified = anime.getUpdatedAt() == null ? -1 : anime.getUpdatedAt().toEpochMilli();
+		if (webRequest.checkNotModified(wireFormatNegotiator.eTag(anime.getId() + "-" + anime.getVersion(), webRequest),
+				lastModified)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+		}
+		return ResponseEntity.ok(anime);
 	}
 
 	@GetMapping(path = "by-id/{id}")
@@ -65,9 +145,40 @@ public class AnimeController {
 		return ResponseEntity.ok(animeService.findByName(name));
 	}
 
+	@GetMapping(path = "/search")
+	@Operation(summary = "Search Animes by name prefix", description = "Matches the start of any word in the name ignoring case and accents, exact and leading matches rank first", tags = {
+			"anime" })
+	public ResponseEntity<Page<Anime>> search(@RequestParam String q, @ParameterObject Pageable pageable) {
+		return ResponseEntity.ok(animeService.search(q, pageable));
+	}
+
 	@PostMapping(path = "/admin")
-	public ResponseEntity<Anime> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
-		return new ResponseEntity<>(animeService.save(animePostRequestBody), HttpStatus.CREATED);
+	@Operation(summary = "Create an Anime unless one with the same name exists", description = "Answers 201 with the new Anime or 200 with the stored one, retries with the same Idempotency-Key header return the first response without touching the database", tags = {
+			"anime" })
+	public ResponseEntity<Anime> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		AnimeSaveResult animeSaveResult = idempotencyKeyCache.get(idempotencyKey, animePostRequestBody.getName(),
+				() -> animeService.save(animePostRequestBody));
+		return new ResponseEntity<>(animeSaveResult.getAnime(),
+				animeSaveResult.isCreated() ? HttpStatus.CREATED : HttpStatus.OK);
+	}
+
+	@PostMapping(path = "/admin/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE,
+			WireFormatNegotiator.APPLICATION_SMILE_VALUE })
+	@Operation(summary = "Create many Animes at once", description = "Items are validated one by one and inserted in JDBC batches, the response reports the outcome of every item in request order", tags = {
+			"anime" })
+	public ResponseEntity<AnimeBulkInsertResponse> saveAll(@RequestBody List<AnimePostRequestBody> animePostRequestBodies) {
+		return ResponseEntity.ok(animeBulkService.saveAll(animePostRequestBodies.iterator()));
+	}
+
+	@PostMapping(path = "/admin/bulk", consumes = APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Create many Animes from a newline-delimited JSON stream", description = "Same as the JSON array variant but items are read from the request while they are inserted, a malformed line is reported as an invalid item", tags = {
+			"anime" })
+	public ResponseEntity<AnimeBulkInsertResponse> saveAllFromStream(InputStream inputStream) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+			return ResponseEntity.ok(animeBulkService.saveAll(
+					new NdjsonIterator<>(reader, objectMapper.readerFor(AnimePostRequestBody.class))));
+		}
 	}
 
 	@DeleteMapping(path = "/admin/{id}")
@@ -78,9 +189,23 @@ public class AnimeController {
 		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 	}
 
+	@DeleteMapping(path = "/admin/bulk")
+	@Operation(summary = "Delete many Animes at once", description = "Runs set-based deletes without loading the Animes, the response splits the given ids into affected and missing ones", tags = {
+			"anime" })
+	public ResponseEntity<AnimeBulkResponse> deleteAll(@RequestBody List<Long> ids) {
+		return ResponseEntity.ok(animeBulkService.deleteAll(ids));
+	}
+
 	@PutMapping(path = "/admin")
 	public ResponseEntity<Void> replace(@RequestBody AnimePutRequestBody animePutRequestBody) {
 		animeService.replace(animePutRequestBody);
 		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 	}
+
+	@PutMapping(path = "/admin/bulk")
+	@Operation(summary = "Replace many Animes at once", description = "Runs batched updates without loading the Animes, the response splits the given ids into affected and missing ones", tags = {
+			"anime" })
+	public ResponseEntity<AnimeBulkResponse> replaceAll(@RequestBody List<AnimePutRequestBody> animePutRequestBodies) {
+		return ResponseEntity.ok(animeBulkService.replaceAll(animePutRequestBodies));
+	}
 }
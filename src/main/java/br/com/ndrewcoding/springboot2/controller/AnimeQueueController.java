@@ -0,0 +1,42 @@
+package br.com.ndrewcoding.springboot2.controller;
+
+import javax.validation.Valid;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeQueuedResponse;
+import br.com.ndrewcoding.springboot2.service.AnimeWriteBehindQueue;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("animes/admin/queue")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ndrewcoding.anime.write-behind", name = "enabled", havingValue = "true")
+public class AnimeQueueController {
+	private final AnimeWriteBehindQueue animeWriteBehindQueue;
+
+	@PostMapping
+	@Operation(summary = "Queue an Anime to be created in the background", description = "Answers 202 with a tracking id to poll, or 429 when the queue is full", tags = {
+			"anime" })
+	public ResponseEntity<AnimeQueuedResponse> enqueue(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
+		AnimeQueuedResponse animeQueuedResponse = animeWriteBehindQueue.enqueue(animePostRequestBody);
+		return ResponseEntity.accepted().location(ServletUriComponentsBuilder.fromCurrentRequest()
+				.path("/{trackingId}").buildAndExpand(animeQueuedResponse.getTrackingId()).toUri())
+				.body(animeQueuedResponse);
+	}
+
+	@GetMapping(path = "/{trackingId}")
+	public ResponseEntity<AnimeQueuedResponse> status(@PathVariable String trackingId) {
+		return ResponseEntity.ok(animeWriteBehindQueue.status(trackingId));
+	}
+}
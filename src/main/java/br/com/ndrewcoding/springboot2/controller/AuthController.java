@@ -0,0 +1,27 @@
+package br.com.ndrewcoding.springboot2.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.ndrewcoding.springboot2.responses.TokenResponse;
+import br.com.ndrewcoding.springboot2.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("auth")
+@RequiredArgsConstructor
+public class AuthController {
+	private final TokenService tokenService;
+
+	@PostMapping(path = "/token")
+	@Operation(summary = "Exchange the current credentials for a short-lived bearer token", description = "Send the token as Authorization: Bearer <token>, roles are read from the token without any user lookup", tags = {
+			"auth" })
+	public ResponseEntity<TokenResponse> token(Authentication authentication) {
+		return ResponseEntity.ok(TokenResponse.builder().accessToken(tokenService.issue(authentication))
+				.tokenType("Bearer").expiresIn(tokenService.getTtl().getSeconds()).build());
+	}
+}
@@ -0,0 +1,38 @@
+package br.com.ndrewcoding.springboot2.datasource;
+
+/**
+ * Marks the loads whose results are kept for every user, such as cache fills, so that
+ * {@link ReadWriteRoutingDataSource} serves them from the primary. Replica lag stored in a shared cache would outlive
+ * the read-your-writes window of the user who wrote.
+ * <p>
+ * The route is chosen when a transaction acquires its connection, so the context must be open before the load starts
+ * its own transaction.
+ */
+public final class PrimaryReadContext implements AutoCloseable {
+	private static final ThreadLocal<PrimaryReadContext> CURRENT = new ThreadLocal<>();
+
+	private final boolean outermost;
+
+	private PrimaryReadContext(boolean outermost) {
+		this.outermost = outermost;
+	}
+
+	public static PrimaryReadContext open() {
+		PrimaryReadContext primaryReadContext = new PrimaryReadContext(CURRENT.get() == null);
+		if (primaryReadContext.outermost) {
+			CURRENT.set(primaryReadContext);
+		}
+		return primaryReadContext;
+	}
+
+	public static boolean isOpen() {
+		return CURRENT.get() != null;
+	}
+
+	@Override
+	public void close() {
+		if (outermost) {
+			CURRENT.remove();
+		}
+	}
+}
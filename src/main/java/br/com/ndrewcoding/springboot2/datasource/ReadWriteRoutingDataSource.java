@@ -0,0 +1,80 @@
+package br.com.ndrewcoding.springboot2.datasource;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. A user who wrote within the
+ * read-your-writes window keeps reading from the primary until the replica has had time to catch up, and so do the
+ * loads run inside a {@link PrimaryReadContext}, since what they read is shared with every user.
+ * <p>
+ * The lookup runs when a connection is acquired, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} for the transaction's read-only flag to be
+ * visible.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+	public static final String COUNTER = "ndrewcoding.datasource.routing";
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	private final ReadYourWritesTracker readYourWritesTracker;
+	private final Counter writes;
+	private final Counter stickyReads;
+	private final Counter sharedReads;
+	private final Counter replicaReads;
+
+	public ReadWriteRoutingDataSource(MeterRegistry meterRegistry, DataSource primary, DataSource replica,
+			ReadYourWritesTracker readYourWritesTracker) {
+		this.readYourWritesTracker = readYourWritesTracker;
+		this.writes = routingCounter(meterRegistry, Route.PRIMARY, "write");
+		this.stickyReads = routingCounter(meterRegistry, Route.PRIMARY, "read-your-writes");
+		this.sharedReads = routingCounter(meterRegistry, Route.PRIMARY, "shared");
+		this.replicaReads = routingCounter(meterRegistry, Route.REPLICA, "read");
+		setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				readYourWritesTracker.recordWrite();
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+					@Override
+					public void afterCommit() {
+						readYourWritesTracker.recordWrite();
+					}
+				});
+			}
+			writes.increment();
+			return Route.PRIMARY;
+		}
+		if (PrimaryReadContext.isOpen()) {
+			sharedReads.increment();
+			return Route.PRIMARY;
+		}
+		if (readYourWritesTracker.wroteRecently()) {
+			stickyReads.increment();
+			return Route.PRIMARY;
+		}
+		replicaReads.increment();
+		return Route.REPLICA;
+	}
+
+	private static Counter routingCounter(MeterRegistry meterRegistry, Route route, String reason) {
+		return Counter.builder(COUNTER).tag("target", route.name().toLowerCase(Locale.ROOT)).tag("reason", reason)
+				.register(meterRegistry);
+	}
+}
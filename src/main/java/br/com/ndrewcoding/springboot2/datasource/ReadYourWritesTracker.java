@@ -0,0 +1,32 @@
+package br.com.ndrewcoding.springboot2.datasource;
+
+import java.time.Duration;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public class ReadYourWritesTracker {
+	private static final String ANONYMOUS = "";
+
+	private final Cache<String, Boolean> recentWriters;
+
+	public ReadYourWritesTracker(Duration window, long maximumSize) {
+		this.recentWriters = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maximumSize).build();
+	}
+
+	public void recordWrite() {
+		recentWriters.put(currentUser(), Boolean.TRUE);
+	}
+
+	public boolean wroteRecently() {
+		return recentWriters.getIfPresent(currentUser()) != null;
+	}
+
+	private static String currentUser() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? ANONYMOUS : authentication.getName();
+	}
+}
@@ -5,23 +5,47 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Builder
+@Builder(toBuilder = true)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_anime_name", columnNames = "name"), indexes = {
+		@Index(name = "idx_anime_name_id", columnList = "name, id"),
+		@Index(name = "idx_anime_updated_at", columnList = "updatedAt") })
 public class Anime {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anime_sequence")
+	@SequenceGenerator(name = "anime_sequence", sequenceName = "anime_sequence", allocationSize = 50)
 	private Long id;
 
 	@NotEmpty(message = "The anime name cannot be empty")
 	private String name;
 
+	@Version
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Long version;
+
+	@UpdateTimestamp
+	@Column(nullable = false)
+	@ColumnDefault("CURRENT_TIMESTAMP(6)")
+	private Instant updatedAt;
 }
@@ -2,28 +2,38 @@ package br.com.ndrewcoding.springboot2.domain;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotEmpty;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import br.com.ndrewcoding.springboot2.event.NdrewCodingUserEntityListener;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
 @Builder
+@EntityListeners(NdrewCodingUserEntityListener.class)
 public class NdrewCodingUser implements UserDetails {
 	private static final long serialVersionUID = 1L;
 
@@ -37,9 +47,29 @@ public class NdrewCodingUser implements UserDetails {
 	private String password;
 	private String authorities;
 
+	// parsed on first use and kept with this user, so a cached user does not split its authorities on every request
+	@Transient
+	@ToString.Exclude
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient List<GrantedAuthority> grantedAuthorities;
+
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
-		return Arrays.stream(authorities.split(",")).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+		if (grantedAuthorities == null) {
+			grantedAuthorities = parseAuthorities(authorities);
+		}
+		return grantedAuthorities;
+	}
+
+	public void setAuthorities(String authorities) {
+		this.authorities = authorities;
+		this.grantedAuthorities = null;
+	}
+
+	private static List<GrantedAuthority> parseAuthorities(String authorities) {
+		return Collections.unmodifiableList(Arrays.stream(authorities.split(",")).map(SimpleGrantedAuthority::new)
+				.collect(Collectors.toList()));
 	}
 
 	@Override
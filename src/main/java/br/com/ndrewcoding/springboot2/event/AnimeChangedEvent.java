@@ -0,0 +1,24 @@
+package br.com.ndrewcoding.springboot2.event;
+
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class AnimeChangedEvent {
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	private final Type type;
+	private final Set<Long> ids;
+	private final Set<String> names;
+
+	public boolean hasKnownNames() {
+		return names != null;
+	}
+}
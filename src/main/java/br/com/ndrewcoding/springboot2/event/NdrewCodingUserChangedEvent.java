@@ -0,0 +1,13 @@
+package br.com.ndrewcoding.springboot2.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class NdrewCodingUserChangedEvent {
+	private final Long id;
+	private final String username;
+}
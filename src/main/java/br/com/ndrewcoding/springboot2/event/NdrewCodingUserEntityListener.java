@@ -0,0 +1,25 @@
+package br.com.ndrewcoding.springboot2.event;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class NdrewCodingUserEntityListener {
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void onChange(NdrewCodingUser ndrewCodingUser) {
+		applicationEventPublisher.publishEvent(
+				new NdrewCodingUserChangedEvent(ndrewCodingUser.getId(), ndrewCodingUser.getUsername()));
+	}
+}
@@ -0,0 +1,9 @@
+package br.com.ndrewcoding.springboot2.exception;
+
+public class AnimeNotFoundException extends BadRequestException {
+	private static final long serialVersionUID = 1L;
+
+	public AnimeNotFoundException() {
+		super("Anime not Found", false);
+	}
+}
@@ -0,0 +1,9 @@
+package br.com.ndrewcoding.springboot2.exception;
+
+public class AnimeQueueFullException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public AnimeQueueFullException() {
+		super("The anime queue is full", null, false, false);
+	}
+}
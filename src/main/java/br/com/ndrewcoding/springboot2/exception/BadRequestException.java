@@ -10,4 +10,8 @@ public class BadRequestException extends RuntimeException {
 	public BadRequestException(String message) {
 		super(message);
 	}
+
+	protected BadRequestException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
 }
@@ -0,0 +1,9 @@
+package br.com.ndrewcoding.springboot2.exception;
+
+public class MalformedItemException extends BadRequestException {
+	private static final long serialVersionUID = 1L;
+
+	public MalformedItemException(String message) {
+		super(message);
+	}
+}
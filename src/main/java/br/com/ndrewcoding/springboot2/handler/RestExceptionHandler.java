@@ -2,12 +2,20 @@ package br.com.ndrewcoding.springboot2.handler;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -15,6 +23,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import br.com.ndrewcoding.springboot2.exception.AnimeQueueFullException;
 import br.com.ndrewcoding.springboot2.exception.BadRequestException;
 import br.com.ndrewcoding.springboot2.exception.BadRequestExceptionDetails;
 import br.com.ndrewcoding.springboot2.exception.ExceptionDetails;
@@ -22,6 +31,8 @@ import br.com.ndrewcoding.springboot2.exception.ValidationExceptionDetails;
 
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
+	private static final String RETRY_AFTER_SECONDS = "1";
+	private static final String ANIME_NAME_CONSTRAINT = "uk_anime_name";
 
 	@ExceptionHandler(BadRequestException.class)
 	public ResponseEntity<BadRequestExceptionDetails> handleBadRequestException(BadRequestException bre) {
@@ -32,6 +43,73 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 				HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler({ CannotCreateTransactionException.class, DataAccessResourceFailureException.class })
+	public ResponseEntity<ExceptionDetails> handleDatabaseUnavailable(Exception exception) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.body(ExceptionDetails.builder().timestamp(LocalDateTime.now())
+						.status(HttpStatus.SERVICE_UNAVAILABLE.value()).title("Service Unavailable, Try Again Later")
+						.details("No database connection became available in time")
+						.developerMessage(exception.getClass().getName()).build());
+	}
+
+	@ExceptionHandler({ RejectedExecutionException.class, TimeoutException.class })
+	public ResponseEntity<ExceptionDetails> handleExecutorSaturated(Exception exception) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.body(ExceptionDetails.builder().timestamp(LocalDateTime.now())
+						.status(HttpStatus.SERVICE_UNAVAILABLE.value()).title("Service Unavailable, Try Again Later")
+						.details("Too many requests are waiting for the database")
+						.developerMessage(exception.getClass().getName()).build());
+	}
+
+	@ExceptionHandler(DataIntegrityViolationException.class)
+	public ResponseEntity<ExceptionDetails> handleDataIntegrityViolation(DataIntegrityViolationException exception) {
+		if (!violates(exception, ANIME_NAME_CONSTRAINT)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.body(ExceptionDetails.builder().timestamp(LocalDateTime.now())
+							.status(HttpStatus.BAD_REQUEST.value()).title("Bad Request Exception, Check the Documentation")
+							.details("The anime was rejected by a constraint of the stored data")
+							.developerMessage(exception.getClass().getName()).build());
+		}
+		return ResponseEntity.status(HttpStatus.CONFLICT)
+				.body(ExceptionDetails.builder().timestamp(LocalDateTime.now()).status(HttpStatus.CONFLICT.value())
+						.title("Conflict, Check the Documentation")
+						.details("The anime conflicts with a stored one, names must be unique")
+						.developerMessage(exception.getClass().getName()).build());
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ExceptionDetails> handleOptimisticLockingFailure(OptimisticLockingFailureException exception) {
+		return ResponseEntity.status(HttpStatus.CONFLICT)
+				.body(ExceptionDetails.builder().timestamp(LocalDateTime.now()).status(HttpStatus.CONFLICT.value())
+						.title("Conflict, Try Again")
+						.details("The anime was changed by another request while this one was applied")
+						.developerMessage(exception.getClass().getName()).build());
+	}
+
+	@ExceptionHandler(AnimeQueueFullException.class)
+	public ResponseEntity<ExceptionDetails> handleAnimeQueueFull(AnimeQueueFullException exception) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.body(ExceptionDetails.builder().timestamp(LocalDateTime.now())
+						.status(HttpStatus.TOO_MANY_REQUESTS.value()).title("Too Many Requests, Try Again Later")
+						.details(exception.getMessage()).developerMessage(exception.getClass().getName()).build());
+	}
+
+	// Hibernate reports the constraint name when it can extract it, otherwise only the driver message carries it
+	private static boolean violates(Throwable exception, String constraint) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			String constraintName = cause instanceof ConstraintViolationException
+					? ((ConstraintViolationException) cause).getConstraintName() : null;
+			if (containsIgnoreCase(constraintName, constraint) || containsIgnoreCase(cause.getMessage(), constraint)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsIgnoreCase(String text, String part) {
+		return text != null && text.toLowerCase(Locale.ROOT).contains(part);
+	}
+
 	@Override
 	protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException exception,
 			HttpHeaders headers, HttpStatus status, WebRequest request) {
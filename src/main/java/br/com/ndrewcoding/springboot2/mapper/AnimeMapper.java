@@ -1,6 +1,7 @@
 package br.com.ndrewcoding.springboot2.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import org.springframework.stereotype.Component;
 
@@ -13,7 +14,12 @@ import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
 public abstract class AnimeMapper {
 	public static final AnimeMapper INSTANCE = Mappers.getMapper(AnimeMapper.class);
 
+	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "updatedAt", ignore = true)
 	public abstract Anime toAnime(AnimePostRequestBody animePostRequestBody);
 
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "updatedAt", ignore = true)
 	public abstract Anime toAnime(AnimePutRequestBody animePutRequestBody);
 }
@@ -0,0 +1,36 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class AuthenticationMetrics {
+	public static final String COUNTER = "ndrewcoding.auth.attempts";
+
+	private final Counter passwordSuccesses;
+	private final Counter passwordFailures;
+
+	public AuthenticationMetrics(MeterRegistry meterRegistry) {
+		this.passwordSuccesses = attempts(meterRegistry, "password", "success");
+		this.passwordFailures = attempts(meterRegistry, "password", "failure");
+	}
+
+	public static Counter attempts(MeterRegistry meterRegistry, String mechanism, String outcome) {
+		return Counter.builder(COUNTER).tag("mechanism", mechanism).tag("outcome", outcome).register(meterRegistry);
+	}
+
+	@EventListener
+	public void onSuccess(AuthenticationSuccessEvent authenticationSuccessEvent) {
+		passwordSuccesses.increment();
+	}
+
+	@EventListener
+	public void onFailure(AbstractAuthenticationFailureEvent authenticationFailureEvent) {
+		passwordFailures.increment();
+	}
+}
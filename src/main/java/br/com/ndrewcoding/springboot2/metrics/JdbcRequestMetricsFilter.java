@@ -0,0 +1,109 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records the statements and rows of every request. A request that goes async, like the /animes/async endpoints and
+ * the ndjson stream, is recorded once its async work completes, and its async dispatch counts towards the same
+ * statistics.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class JdbcRequestMetricsFilter extends OncePerRequestFilter {
+	private static final String STATISTICS_ATTRIBUTE = JdbcRequestMetricsFilter.class.getName() + ".STATISTICS";
+
+	private final MeterRegistry meterRegistry;
+	private final SlowQueryLogger slowQueryLogger;
+	private final int repeatedStatementThreshold;
+
+	public JdbcRequestMetricsFilter(MeterRegistry meterRegistry, SlowQueryLogger slowQueryLogger,
+			@Value("${ndrewcoding.jdbc.repeated-statement-threshold:10}") int repeatedStatementThreshold) {
+		this.meterRegistry = meterRegistry;
+		this.slowQueryLogger = slowQueryLogger;
+		this.repeatedStatementThreshold = repeatedStatementThreshold;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		JdbcRequestStatistics jdbcRequestStatistics = (JdbcRequestStatistics) request
+				.getAttribute(STATISTICS_ATTRIBUTE);
+		if (jdbcRequestStatistics == null) {
+			jdbcRequestStatistics = JdbcRequestStatistics.begin();
+		} else {
+			JdbcRequestStatistics.resume(jdbcRequestStatistics);
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			JdbcRequestStatistics.end();
+			if (request.getAttribute(STATISTICS_ATTRIBUTE) == null) {
+				if (request.isAsyncStarted()) {
+					request.setAttribute(STATISTICS_ATTRIBUTE, jdbcRequestStatistics);
+					request.getAsyncContext().addListener(new RecordOnComplete(request, jdbcRequestStatistics));
+				} else {
+					record(request, jdbcRequestStatistics);
+				}
+			}
+		}
+	}
+
+	private void record(HttpServletRequest request, JdbcRequestStatistics jdbcRequestStatistics) {
+		String uri = Objects.toString(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), "UNKNOWN");
+		meterRegistry.summary("ndrewcoding.jdbc.statements.per.request", "uri", uri)
+				.record(jdbcRequestStatistics.getStatements());
+		meterRegistry.summary("ndrewcoding.jdbc.rows.per.request", "uri", uri).record(jdbcRequestStatistics.getRows());
+		if (jdbcRequestStatistics.getMostRepeatedExecutions() >= repeatedStatementThreshold) {
+			meterRegistry.counter("ndrewcoding.jdbc.repeated.statements", "uri", uri).increment();
+			slowQueryLogger.repeatedStatement(uri, jdbcRequestStatistics.getMostRepeatedSql(),
+					jdbcRequestStatistics.getMostRepeatedExecutions());
+		}
+	}
+
+	// complete follows a timeout or an error as well, so recording there counts every async request exactly once
+	@RequiredArgsConstructor
+	private class RecordOnComplete implements AsyncListener {
+		private final HttpServletRequest request;
+		private final JdbcRequestStatistics jdbcRequestStatistics;
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			record(request, jdbcRequestStatistics);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+	}
+}
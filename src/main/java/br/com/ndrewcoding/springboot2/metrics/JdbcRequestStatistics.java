@@ -0,0 +1,74 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Counts the statements and rows of one request. Work the request hands to another thread, such as the anime async
+ * executor or a streaming response body, is attributed to it by running that work through {@link #propagate}.
+ */
+@Getter
+public class JdbcRequestStatistics {
+	private static final ThreadLocal<JdbcRequestStatistics> CURRENT = new ThreadLocal<>();
+
+	private final Map<String, Integer> executionsBySql = new HashMap<>();
+	private int statements;
+	private long rows;
+	private String mostRepeatedSql;
+	private int mostRepeatedExecutions;
+
+	public static JdbcRequestStatistics begin() {
+		JdbcRequestStatistics jdbcRequestStatistics = new JdbcRequestStatistics();
+		CURRENT.set(jdbcRequestStatistics);
+		return jdbcRequestStatistics;
+	}
+
+	public static JdbcRequestStatistics current() {
+		return CURRENT.get();
+	}
+
+	public static void resume(JdbcRequestStatistics jdbcRequestStatistics) {
+		CURRENT.set(jdbcRequestStatistics);
+	}
+
+	// captures the statistics of the submitting thread, so it must be called where the task is handed off
+	public static Runnable propagate(Runnable task) {
+		JdbcRequestStatistics jdbcRequestStatistics = CURRENT.get();
+		if (jdbcRequestStatistics == null) {
+			return task;
+		}
+		return () -> {
+			JdbcRequestStatistics previous = CURRENT.get();
+			CURRENT.set(jdbcRequestStatistics);
+			try {
+				task.run();
+			} finally {
+				if (previous == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(previous);
+				}
+			}
+		};
+	}
+
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	// async stages of one request may run on several threads
+	synchronized void statementExecuted(String sql) {
+		statements++;
+		int executions = executionsBySql.merge(sql, 1, Integer::sum);
+		if (executions > mostRepeatedExecutions) {
+			mostRepeatedExecutions = executions;
+			mostRepeatedSql = sql;
+		}
+	}
+
+	synchronized void rowRead() {
+		rows++;
+	}
+}
@@ -0,0 +1,88 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+@Component
+public class QueryMetricsListener implements QueryExecutionListener {
+	public static final String TIMER = "ndrewcoding.jdbc.queries";
+	public static final String ROWS = "ndrewcoding.jdbc.rows";
+	private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update|join)\\s+([a-z_][a-z0-9_]*)",
+			Pattern.CASE_INSENSITIVE);
+
+	private final MeterRegistry meterRegistry;
+	private final SlowQueryLogger slowQueryLogger;
+	private final long slowQueryThresholdMillis;
+	private final Cache<String, QueryMeters> queryMetersBySql;
+
+	public QueryMetricsListener(MeterRegistry meterRegistry, SlowQueryLogger slowQueryLogger,
+			@Value("${ndrewcoding.jdbc.slow-query-threshold:500ms}") Duration slowQueryThreshold,
+			@Value("${ndrewcoding.jdbc.sql-cache-size:1000}") long sqlCacheSize) {
+		this.meterRegistry = meterRegistry;
+		this.slowQueryLogger = slowQueryLogger;
+		this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+		this.queryMetersBySql = Caffeine.newBuilder().maximumSize(sqlCacheSize).build();
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+		String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+		QueryMeters queryMeters = queryMetersBySql.get(sql, this::toQueryMeters);
+		Tags tags = queryMeters.tags.and("batch", String.valueOf(executionInfo.isBatch())).and("outcome",
+				executionInfo.isSuccess() ? "success" : "error");
+		meterRegistry.timer(TIMER, tags).record(executionInfo.getElapsedTime(), TimeUnit.MILLISECONDS);
+
+		JdbcRequestStatistics jdbcRequestStatistics = JdbcRequestStatistics.current();
+		if (jdbcRequestStatistics != null) {
+			jdbcRequestStatistics.statementExecuted(sql);
+		}
+		if (executionInfo.getResult() instanceof ResultSet) {
+			RowCountingResultSetProxyLogicFactory.bind((ResultSet) executionInfo.getResult(), queryMeters.rows,
+					jdbcRequestStatistics);
+		}
+		if (executionInfo.getElapsedTime() >= slowQueryThresholdMillis) {
+			slowQueryLogger.slowQuery(sql, executionInfo.getElapsedTime(), executionInfo.getBatchSize());
+		}
+	}
+
+	static Tags toTags(String sql) {
+		Matcher matcher = TABLE.matcher(sql);
+		String table = matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "none";
+		return Tags.of("type", QueryUtils.getQueryType(sql).name().toLowerCase(Locale.ROOT), "table", table);
+	}
+
+	private QueryMeters toQueryMeters(String sql) {
+		Tags tags = toTags(sql);
+		return new QueryMeters(tags, meterRegistry.counter(ROWS, tags));
+	}
+
+	@RequiredArgsConstructor
+	private static class QueryMeters {
+		private final Tags tags;
+		private final Counter rows;
+	}
+}
@@ -0,0 +1,52 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+	public static final String TIMER = "ndrewcoding.repository.invocations";
+
+	private final MeterRegistry meterRegistry;
+	private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+	@Around("this(org.springframework.data.repository.Repository)")
+	public Object time(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			return proceedingJoinPoint.proceed();
+		} catch (Throwable throwable) {
+			exception = throwable.getClass().getSimpleName();
+			throw throwable;
+		} finally {
+			sample.stop(Timer.builder(TIMER).tag("repository", repositoryName(proceedingJoinPoint.getTarget()))
+					.tag("method", proceedingJoinPoint.getSignature().getName()).tag("exception", exception)
+					.register(meterRegistry));
+		}
+	}
+
+	private String repositoryName(Object repository) {
+		return repositoryNames.computeIfAbsent(repository.getClass(), repositoryClass -> {
+			for (Class<?> repositoryInterface : AopProxyUtils.proxiedUserInterfaces(repository)) {
+				if (Repository.class.isAssignableFrom(repositoryInterface)) {
+					return repositoryInterface.getSimpleName();
+				}
+			}
+			return repositoryClass.getSimpleName();
+		});
+	}
+}
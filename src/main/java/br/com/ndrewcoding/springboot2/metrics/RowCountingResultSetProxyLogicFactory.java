@@ -0,0 +1,78 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import io.micrometer.core.instrument.Counter;
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+
+/**
+ * Proxies result sets only to count the rows they return. Every other call goes straight to the driver, unlike a
+ * method listener, which builds an execution context and times each getter of each row.
+ * <p>
+ * A result set counts nothing until {@link QueryMetricsListener} binds it to the statement that produced it, so a
+ * cursor read while other statements run keeps counting towards its own statement and request.
+ */
+public class RowCountingResultSetProxyLogicFactory implements ResultSetProxyLogicFactory {
+	@Override
+	public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+		return new RowCountingResultSetProxyLogic(resultSet);
+	}
+
+	static void bind(ResultSet resultSet, Counter rows, JdbcRequestStatistics jdbcRequestStatistics) {
+		try {
+			if (resultSet.isWrapperFor(RowCountingResultSetProxyLogic.class)) {
+				resultSet.unwrap(RowCountingResultSetProxyLogic.class).bind(rows, jdbcRequestStatistics);
+			}
+		} catch (SQLException exception) {
+			// rows of this result set are simply not counted
+		}
+	}
+
+	static class RowCountingResultSetProxyLogic implements ResultSetProxyLogic {
+		private final ResultSet resultSet;
+		private Counter rows;
+		private JdbcRequestStatistics jdbcRequestStatistics;
+
+		RowCountingResultSetProxyLogic(ResultSet resultSet) {
+			this.resultSet = resultSet;
+		}
+
+		void bind(Counter rows, JdbcRequestStatistics jdbcRequestStatistics) {
+			this.rows = rows;
+			this.jdbcRequestStatistics = jdbcRequestStatistics;
+		}
+
+		@Override
+		public Object invoke(Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (args != null && args.length == 1 && args[0] == RowCountingResultSetProxyLogic.class) {
+				if ("unwrap".equals(methodName)) {
+					return this;
+				}
+				if ("isWrapperFor".equals(methodName)) {
+					return true;
+				}
+			}
+
+			Object result;
+			try {
+				result = method.invoke(resultSet, args);
+			} catch (InvocationTargetException exception) {
+				throw exception.getTargetException();
+			}
+			if (rows != null && Boolean.TRUE.equals(result) && "next".equals(methodName)) {
+				rows.increment();
+				if (jdbcRequestStatistics != null) {
+					jdbcRequestStatistics.rowRead();
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Component
+public class SlowQueryLogger implements DisposableBean {
+	private static final int QUEUE_CAPACITY = 1000;
+
+	private final ThreadPoolExecutor executor;
+
+	public SlowQueryLogger(MeterRegistry meterRegistry) {
+		Counter dropped = meterRegistry.counter("ndrewcoding.jdbc.slow.log.dropped");
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+					Thread thread = new Thread(runnable, "slow-query-logger");
+					thread.setDaemon(true);
+					return thread;
+				}, (runnable, threadPoolExecutor) -> dropped.increment());
+	}
+
+	public void slowQuery(String sql, long elapsedMillis, int batchSize) {
+		executor.execute(() -> log.warn("Slow query took {} ms (batch size {}): {}", elapsedMillis, batchSize, sql));
+	}
+
+	public void repeatedStatement(String uri, String sql, int executions) {
+		executor.execute(() -> log.warn("{} ran the same statement {} times in one request, possible N+1: {}", uri,
+				executions, sql));
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,9 @@
+package br.com.ndrewcoding.springboot2.repository;
+
+import java.time.Instant;
+
+public interface AnimeCatalogStats {
+	long getCount();
+
+	Instant getLastModified();
+}
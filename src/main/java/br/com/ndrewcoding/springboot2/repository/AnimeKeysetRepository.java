@@ -0,0 +1,16 @@
+package br.com.ndrewcoding.springboot2.repository;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+
+public interface AnimeKeysetRepository {
+	Set<String> SORTABLE_PROPERTIES = Set.of("id", "name");
+
+	@Transactional(readOnly = true)
+	List<Anime> findByKeyset(String property, Sort.Direction direction, Anime boundary, int limit);
+}
@@ -0,0 +1,50 @@
+package br.com.ndrewcoding.springboot2.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.springframework.data.domain.Sort;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class AnimeKeysetRepositoryImpl implements AnimeKeysetRepository {
+	private final EntityManager entityManager;
+
+	@Override
+	public List<Anime> findByKeyset(String property, Sort.Direction direction, Anime boundary, int limit) {
+		String comparison = direction.isAscending() ? ">" : "<";
+		String order = direction.isAscending() ? " asc" : " desc";
+		StringBuilder jpql = new StringBuilder("select a from Anime a");
+
+		switch (property) {
+		case "id":
+			if (boundary != null) {
+				jpql.append(" where a.id ").append(comparison).append(" :id");
+			}
+			jpql.append(" order by a.id").append(order);
+			break;
+		case "name":
+			if (boundary != null) {
+				jpql.append(" where a.name ").append(comparison).append(" :name or (a.name = :name and a.id ")
+						.append(comparison).append(" :id)");
+			}
+			jpql.append(" order by a.name").append(order).append(", a.id").append(order);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported keyset property: " + property);
+		}
+
+		TypedQuery<Anime> query = entityManager.createQuery(jpql.toString(), Anime.class).setMaxResults(limit);
+		if (boundary != null) {
+			query.setParameter("id", boundary.getId());
+			if ("name".equals(property)) {
+				query.setParameter("name", boundary.getName());
+			}
+		}
+		return query.getResultList();
+	}
+}
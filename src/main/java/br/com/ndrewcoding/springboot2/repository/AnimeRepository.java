@@ -1,12 +1,52 @@
 package br.com.ndrewcoding.springboot2.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import br.com.ndrewcoding.springboot2.domain.Anime;
 
-import java.util.List;
-
-public interface AnimeRepository extends JpaRepository<Anime, Long> {
+public interface AnimeRepository extends JpaRepository<Anime, Long>, AnimeKeysetRepository, AnimeUpsertRepository {
+	String SELECT_UNMANAGED = "select new br.com.ndrewcoding.springboot2.domain.Anime(a.id, a.name, a.version, a.updatedAt) from Anime a";
 
 	List<Anime> findByName(String name);
+
+	List<Anime> findByNameIn(Collection<String> names);
+
+	@Query(SELECT_UNMANAGED)
+	@Transactional(readOnly = true)
+	Slice<Anime> findAllBy(Pageable pageable);
+
+	@Query(SELECT_UNMANAGED)
+	List<Anime> findAllBy();
+
+	Page<Anime> findByNameStartingWithIgnoreCase(String prefix, Pageable pageable);
+
+	@Query("select a from Anime a")
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true") })
+	Stream<Anime> streamAll();
+
+	@Query("select count(a) as count, max(a.updatedAt) as lastModified from Anime a")
+	AnimeCatalogStats findCatalogStats();
+
+	@Query("select a.id from Anime a where a.id in :ids")
+	List<Long> findIdsByIdIn(Collection<Long> ids);
+
+	@Modifying
+	@Query("delete from Anime a where a.id in :ids")
+	int deleteByIdIn(Collection<Long> ids);
 }
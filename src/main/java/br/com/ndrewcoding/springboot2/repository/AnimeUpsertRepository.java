@@ -0,0 +1,7 @@
+package br.com.ndrewcoding.springboot2.repository;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+
+public interface AnimeUpsertRepository {
+	boolean insertIfAbsent(Anime anime);
+}
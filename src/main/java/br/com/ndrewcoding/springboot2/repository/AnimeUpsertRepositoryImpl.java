@@ -0,0 +1,49 @@
+package br.com.ndrewcoding.springboot2.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class AnimeUpsertRepositoryImpl implements AnimeUpsertRepository {
+	private static final String MYSQL_UPSERT_SQL = "insert into anime (id, name, version, updated_at) values (?1, ?2, 0, ?3)"
+			+ " on duplicate key update id = id";
+	private static final String MERGE_UPSERT_SQL = "merge into anime a using (select cast(?1 as bigint) as id, cast(?2 as varchar(255)) as name) s"
+			+ " on (a.name = s.name) when not matched then insert (id, name, version, updated_at) values (s.id, s.name, 0, ?3)";
+
+	private final EntityManager entityManager;
+
+	@Override
+	public boolean insertIfAbsent(Anime anime) {
+		SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+		SessionFactoryImplementor sessionFactory = session.getFactory();
+		Long id = (Long) sessionFactory.getMetamodel().entityPersister(Anime.class).getIdentifierGenerator()
+				.generate(session, anime);
+
+		String sql = sessionFactory.getJdbcServices().getDialect() instanceof MySQLDialect ? MYSQL_UPSERT_SQL
+				: MERGE_UPSERT_SQL;
+		entityManager.createNativeQuery(sql).setParameter(1, id).setParameter(2, anime.getName())
+				.setParameter(3, Timestamp.from(Instant.now())).executeUpdate();
+
+		List<Anime> storedAnimes = entityManager.createQuery("select a from Anime a where a.name = :name", Anime.class)
+				.setParameter("name", anime.getName()).getResultList();
+		// on MySQL a taken id is swallowed by the same clause as a taken name, so nothing was inserted under this name
+		if (storedAnimes.isEmpty()) {
+			throw new IllegalStateException("Anime id " + id + " is already taken, the id sequence is behind the table");
+		}
+		Anime storedAnime = storedAnimes.get(0);
+		anime.setId(storedAnime.getId());
+		anime.setVersion(storedAnime.getVersion());
+		anime.setUpdatedAt(storedAnime.getUpdatedAt());
+		return storedAnime.getId().equals(id);
+	}
+}
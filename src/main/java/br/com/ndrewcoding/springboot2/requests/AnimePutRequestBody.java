@@ -1,11 +1,16 @@
 package br.com.ndrewcoding.springboot2.requests;
 
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
 public class AnimePutRequestBody {
+    @NotNull(message = "The anime id cannot be null")
     private Long id;
+    @NotEmpty(message = "The anime name cannot be empty")
     private String name;
 }
@@ -0,0 +1,19 @@
+package br.com.ndrewcoding.springboot2.responses;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBulkInsertResponse {
+	private long created;
+	private long existing;
+	private long rejected;
+	private List<AnimeBulkItemResult> items;
+}
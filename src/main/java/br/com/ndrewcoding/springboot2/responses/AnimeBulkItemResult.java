@@ -0,0 +1,24 @@
+package br.com.ndrewcoding.springboot2.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnimeBulkItemResult {
+	public enum Status {
+		CREATED, EXISTING, INVALID, FAILED
+	}
+
+	private int index;
+	private Status status;
+	private Long id;
+	private String message;
+}
@@ -0,0 +1,22 @@
+package br.com.ndrewcoding.springboot2.responses;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBulkResponse {
+	private List<Long> affectedIds;
+	private List<Long> missingIds;
+	// items that were not applied, either INVALID or FAILED, with the index they had in the request
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<AnimeBulkItemResult> rejected;
+}
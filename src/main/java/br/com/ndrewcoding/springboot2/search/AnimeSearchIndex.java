@@ -0,0 +1,225 @@
+package br.com.ndrewcoding.springboot2.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.wrapper.SearchPage;
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Component
+public class AnimeSearchIndex {
+	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}");
+
+	private final ConcurrentSkipListMap<String, Set<Long>> idsByToken = new ConcurrentSkipListMap<>();
+	private final ConcurrentSkipListMap<String, Set<Long>> idsByNormalizedName = new ConcurrentSkipListMap<>();
+	private final Map<Long, String> normalizedNamesById = new ConcurrentHashMap<>();
+	private final Set<Long> changedDuringWarmUp = ConcurrentHashMap.newKeySet();
+	private final AnimeRepository animeRepository;
+	private final TransactionTemplate readOnlyTransactionTemplate;
+	private final boolean enabled;
+	private volatile boolean ready;
+
+	public AnimeSearchIndex(AnimeRepository animeRepository, PlatformTransactionManager transactionManager,
+			@Value("${ndrewcoding.search.index.enabled:true}") boolean enabled) {
+		this.animeRepository = animeRepository;
+		this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTransactionTemplate.setReadOnly(true);
+		this.enabled = enabled;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public SearchPage<Long> search(String query, Pageable pageable) {
+		List<String> queryTokens = tokenize(query);
+		if (queryTokens.isEmpty()) {
+			return new SearchPage<>(List.of(), pageable, 0, false);
+		}
+
+		// at most the titles up to the end of the requested page are collected, plus one to tell whether more match, so
+		// a one letter typeahead over a large catalog costs the depth of the page instead of every title under it
+		long depth = pageable.getOffset() + pageable.getPageSize();
+		long limit = depth + 1;
+		String normalizedQuery = String.join(" ", queryTokens);
+		List<SearchHit> hits = new ArrayList<>();
+		Set<Long> seenIds = new HashSet<>();
+		// names starting with the query come first, so exact and leading matches are never cut by word matches
+		collect(tokensWithPrefix(idsByNormalizedName, normalizedQuery).values().iterator(), queryTokens,
+				normalizedQuery, limit, hits, seenIds);
+		if (hits.size() < limit) {
+			// the most selective prefix seeds the word matches, the other words are checked on each candidate's name
+			String seedToken = queryTokens.stream().min(Comparator.<String>comparingLong(
+					token -> countIdsWithTokenPrefix(token, limit)).thenComparing(Comparator.comparingInt(String::length)
+							.reversed())).orElseThrow();
+			collect(tokensWithPrefix(idsByToken, seedToken).values().iterator(), queryTokens, normalizedQuery, limit,
+					hits, seenIds);
+		}
+		boolean truncated = hits.size() == limit;
+		hits.sort(SearchHit.BY_RELEVANCE);
+
+		int fromIndex = (int) Math.min(pageable.getOffset(), hits.size());
+		int toIndex = (int) Math.min(depth, hits.size());
+		List<Long> pageIds = hits.subList(fromIndex, toIndex).stream().map(SearchHit::getId)
+				.collect(Collectors.toList());
+		return new SearchPage<>(pageIds, pageable, Math.min(hits.size(), depth), truncated);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (!enabled) {
+			return;
+		}
+		Thread warmUpThread = new Thread(this::rebuild, "anime-search-index-warm-up");
+		warmUpThread.setDaemon(true);
+		warmUpThread.start();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAnimeChanged(AnimeChangedEvent animeChangedEvent) {
+		if (!enabled) {
+			return;
+		}
+		if (!ready) {
+			changedDuringWarmUp.addAll(animeChangedEvent.getIds());
+		}
+		if (animeChangedEvent.getType() == AnimeChangedEvent.Type.DELETED) {
+			animeChangedEvent.getIds().forEach(this::remove);
+			return;
+		}
+		animeRepository.findAllById(animeChangedEvent.getIds()).forEach(anime -> index(anime.getId(), anime.getName()));
+	}
+
+	synchronized void index(long id, String name) {
+		List<String> tokens = tokenize(name);
+		String normalizedName = String.join(" ", tokens);
+		String previousName = normalizedNamesById.put(id, normalizedName);
+		if (previousName != null) {
+			unindex(id, previousName);
+		}
+		idsByNormalizedName.computeIfAbsent(normalizedName, key -> ConcurrentHashMap.newKeySet()).add(id);
+		for (String token : new HashSet<>(tokens)) {
+			idsByToken.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+		}
+	}
+
+	synchronized void remove(long id) {
+		String previousName = normalizedNamesById.remove(id);
+		if (previousName != null) {
+			unindex(id, previousName);
+		}
+	}
+
+	private void rebuild() {
+		long startedAt = System.currentTimeMillis();
+		try {
+			readOnlyTransactionTemplate.executeWithoutResult(status -> {
+				try (Stream<Anime> animes = animeRepository.streamAll()) {
+					animes.filter(anime -> !changedDuringWarmUp.contains(anime.getId()))
+							.forEach(anime -> index(anime.getId(), anime.getName()));
+				}
+			});
+			ready = true;
+			changedDuringWarmUp.clear();
+			log.info("Anime search index built with {} titles in {} ms", normalizedNamesById.size(),
+					System.currentTimeMillis() - startedAt);
+		} catch (RuntimeException exception) {
+			log.error("Anime search index warm-up failed, searches will keep using the database", exception);
+		}
+	}
+
+	// keys are visited in order, so names holding a prefix as a whole word come before longer completions
+	private void collect(Iterator<Set<Long>> candidates, List<String> queryTokens, String normalizedQuery, long limit,
+			List<SearchHit> hits, Set<Long> seenIds) {
+		while (candidates.hasNext()) {
+			for (Long id : candidates.next()) {
+				String normalizedName = normalizedNamesById.get(id);
+				if (seenIds.add(id) && normalizedName != null && hasEveryTokenPrefix(normalizedName, queryTokens)) {
+					hits.add(new SearchHit(id, normalizedName, rank(normalizedName, normalizedQuery)));
+					if (hits.size() == limit) {
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private static NavigableMap<String, Set<Long>> tokensWithPrefix(NavigableMap<String, Set<Long>> idsByKey,
+			String prefix) {
+		return idsByKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+	}
+
+	private long countIdsWithTokenPrefix(String prefix, long limit) {
+		long count = 0;
+		for (Set<Long> ids : tokensWithPrefix(idsByToken, prefix).values()) {
+			count += ids.size();
+			if (count >= limit) {
+				return limit;
+			}
+		}
+		return count;
+	}
+
+	private static boolean hasEveryTokenPrefix(String normalizedName, List<String> queryTokens) {
+		List<String> nameTokens = Arrays.asList(normalizedName.split(" "));
+		return queryTokens.stream().allMatch(queryToken -> nameTokens.stream().anyMatch(
+				nameToken -> nameToken.startsWith(queryToken)));
+	}
+
+	private void unindex(long id, String normalizedName) {
+		idsByNormalizedName.computeIfPresent(normalizedName, (key, ids) -> {
+			ids.remove(id);
+			return ids.isEmpty() ? null : ids;
+		});
+		for (String token : normalizedName.split(" ")) {
+			idsByToken.computeIfPresent(token, (key, ids) -> {
+				ids.remove(id);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+	}
+
+	private static int rank(String normalizedName, String normalizedQuery) {
+		if (normalizedName.equals(normalizedQuery)) {
+			return 0;
+		}
+		return normalizedName.startsWith(normalizedQuery) ? 1 : 2;
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null) {
+			return List.of();
+		}
+		String withoutAccents = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		return Arrays.stream(NON_ALPHANUMERIC.split(withoutAccents.toLowerCase(Locale.ROOT)))
+				.filter(token -> !token.isEmpty()).collect(Collectors.toList());
+	}
+}
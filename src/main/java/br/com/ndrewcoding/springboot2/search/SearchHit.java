@@ -0,0 +1,18 @@
+package br.com.ndrewcoding.springboot2.search;
+
+import java.util.Comparator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+class SearchHit {
+	static final Comparator<SearchHit> BY_RELEVANCE = Comparator.comparingInt(SearchHit::getRank)
+			.thenComparingInt(hit -> hit.getNormalizedName().length()).thenComparing(SearchHit::getNormalizedName)
+			.thenComparing(SearchHit::getId);
+
+	private final Long id;
+	private final String normalizedName;
+	private final int rank;
+}
@@ -0,0 +1,74 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+public class CachingPasswordEncoder implements PasswordEncoder {
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final PasswordEncoder delegate;
+	private final SecretKeySpec secretKey;
+	private final Cache<String, Boolean> verifiedCredentials;
+
+	public CachingPasswordEncoder(MeterRegistry meterRegistry, PasswordEncoder delegate, long maximumSize, Duration ttl) {
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.delegate = delegate;
+		this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+		this.verifiedCredentials = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "verifiedCredentials");
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return delegate.encode(rawPassword);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		if (rawPassword == null || encodedPassword == null) {
+			return delegate.matches(rawPassword, encodedPassword);
+		}
+		String key = keyOf(rawPassword, encodedPassword);
+		if (verifiedCredentials.getIfPresent(key) != null) {
+			return true;
+		}
+		boolean matches = delegate.matches(rawPassword, encodedPassword);
+		if (matches) {
+			verifiedCredentials.put(key, Boolean.TRUE);
+		}
+		return matches;
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	private String keyOf(CharSequence rawPassword, String encodedPassword) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(secretKey);
+			mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) 0);
+			return Base64.getEncoder().encodeToString(mac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
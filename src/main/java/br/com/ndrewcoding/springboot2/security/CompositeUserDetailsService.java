@@ -0,0 +1,31 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.util.List;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Looks the user up in each source in order. Serving every source from a single {@code DaoAuthenticationProvider}
+ * keeps its not-found timing mitigation, a full bcrypt run, for usernames that really do not exist.
+ */
+public class CompositeUserDetailsService implements UserDetailsService {
+	private final List<UserDetailsService> userDetailsServices;
+
+	public CompositeUserDetailsService(UserDetailsService... userDetailsServices) {
+		this.userDetailsServices = List.of(userDetailsServices);
+	}
+
+	@Override
+	public UserDetails loadUserByUsername(String username) {
+		for (UserDetailsService userDetailsService : userDetailsServices) {
+			try {
+				return userDetailsService.loadUserByUsername(username);
+			} catch (UsernameNotFoundException exception) {
+				// try the next source
+			}
+		}
+		throw new UsernameNotFoundException("NdrewCoding User not found");
+	}
+}
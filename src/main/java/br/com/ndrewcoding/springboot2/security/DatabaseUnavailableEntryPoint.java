@@ -0,0 +1,40 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class DatabaseUnavailableEntryPoint implements AuthenticationEntryPoint {
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private final AuthenticationEntryPoint delegate;
+
+	@Override
+	public void commence(HttpServletRequest request, HttpServletResponse response,
+			AuthenticationException authenticationException) throws IOException, ServletException {
+		if (authenticationException instanceof InternalAuthenticationServiceException
+				&& (authenticationException.getCause() instanceof CannotCreateTransactionException
+						|| authenticationException.getCause() instanceof DataAccessResourceFailureException)) {
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.getWriter().write("No database connection became available in time");
+			return;
+		}
+		delegate.commence(request, response, authenticationException);
+	}
+}
@@ -0,0 +1,69 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import br.com.ndrewcoding.springboot2.metrics.AuthenticationMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+	private static final String BEARER_PREFIX = "Bearer ";
+	public static final RequestMatcher BEARER_REQUESTS = request -> {
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		return authorization != null && authorization.startsWith(BEARER_PREFIX);
+	};
+
+	private final TokenService tokenService;
+	private final Counter successes;
+	private final Counter failures;
+	private final RequestMatcher ignoredRequests;
+
+	public TokenAuthenticationFilter(TokenService tokenService, MeterRegistry meterRegistry,
+			RequestMatcher ignoredRequests) {
+		this.tokenService = tokenService;
+		this.ignoredRequests = ignoredRequests;
+		this.successes = AuthenticationMetrics.attempts(meterRegistry, "token", "success");
+		this.failures = AuthenticationMetrics.attempts(meterRegistry, "token", "failure");
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return ignoredRequests.matches(request);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+			Optional<TokenClaims> verifiedClaims = tokenService.verify(authorization.substring(BEARER_PREFIX.length()));
+			verifiedClaims.ifPresentOrElse(tokenClaims -> {
+				// built once from the verified claims and shared by the principal and the authentication
+				List<GrantedAuthority> authorities = tokenClaims.getRoles().stream().map(SimpleGrantedAuthority::new)
+						.collect(Collectors.toUnmodifiableList());
+				User principal = new User(tokenClaims.getSub(), "", authorities);
+				SecurityContextHolder.getContext()
+						.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+				successes.increment();
+			}, failures::increment);
+		}
+		filterChain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,19 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenClaims {
+	private String sub;
+	private List<String> roles;
+	private long iat;
+	private long exp;
+}
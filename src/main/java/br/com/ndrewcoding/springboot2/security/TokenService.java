@@ -0,0 +1,112 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Component
+public class TokenService {
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	private static final String HEADER = ENCODER
+			.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+	private final ObjectMapper objectMapper;
+	private final SecretKeySpec secretKey;
+	@Getter
+	private final Duration ttl;
+	private final Clock clock;
+
+	@Autowired
+	public TokenService(ObjectMapper objectMapper, @Value("${ndrewcoding.security.token.secret:}") String secret,
+			@Value("${ndrewcoding.security.token.ttl:15m}") Duration ttl) {
+		this(objectMapper, secret, ttl, Clock.systemUTC());
+	}
+
+	TokenService(ObjectMapper objectMapper, String secret, Duration ttl, Clock clock) {
+		this.objectMapper = objectMapper;
+		this.secretKey = new SecretKeySpec(toKeyBytes(secret), HMAC_ALGORITHM);
+		this.ttl = ttl;
+		this.clock = clock;
+	}
+
+	public String issue(Authentication authentication) {
+		long now = clock.instant().getEpochSecond();
+		TokenClaims tokenClaims = TokenClaims.builder().sub(authentication.getName())
+				.roles(authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+						.collect(Collectors.toList()))
+				.iat(now).exp(now + ttl.getSeconds()).build();
+		try {
+			String signingInput = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(tokenClaims));
+			return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public Optional<TokenClaims> verify(String token) {
+		int signatureStart = token.lastIndexOf('.');
+		int payloadStart = token.indexOf('.');
+		if (payloadStart <= 0 || signatureStart <= payloadStart || !token.startsWith(HEADER + ".")) {
+			return Optional.empty();
+		}
+		try {
+			String signingInput = token.substring(0, signatureStart);
+			byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+			if (!MessageDigest.isEqual(sign(signingInput), signature)) {
+				return Optional.empty();
+			}
+			TokenClaims tokenClaims = objectMapper.readValue(DECODER.decode(token.substring(payloadStart + 1,
+					signatureStart)), TokenClaims.class);
+			if (tokenClaims.getExp() <= clock.instant().getEpochSecond()) {
+				return Optional.empty();
+			}
+			return Optional.of(tokenClaims);
+		} catch (IllegalArgumentException | IOException e) {
+			return Optional.empty();
+		}
+	}
+
+	private byte[] sign(String signingInput) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(secretKey);
+			return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] toKeyBytes(String secret) {
+		if (secret != null && !secret.isEmpty()) {
+			return Base64.getDecoder().decode(secret);
+		}
+		log.warn("ndrewcoding.security.token.secret is not set, tokens will only be valid on this instance until it restarts");
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+}
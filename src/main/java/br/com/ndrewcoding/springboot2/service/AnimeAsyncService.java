@@ -0,0 +1,118 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.metrics.JdbcRequestStatistics;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs {@link AnimeService} calls on a bounded pool sized to the connection pool, so servlet threads are released
+ * while JDBC blocks. A full queue rejects the call instead of growing, and calls that wait longer than the timeout fail
+ * with a {@link java.util.concurrent.TimeoutException}.
+ */
+@Service
+public class AnimeAsyncService {
+	public static final String EXECUTOR = "animeAsync";
+
+	private final AnimeService animeService;
+	private final ThreadPoolExecutor threadPoolExecutor;
+	private final ExecutorService executorService;
+	private final Executor executor;
+	private final long timeoutMillis;
+
+	public AnimeAsyncService(AnimeService animeService, MeterRegistry meterRegistry,
+			@Value("${ndrewcoding.async.pool-size:10}") int poolSize,
+			@Value("${ndrewcoding.async.queue-capacity:1000}") int queueCapacity,
+			@Value("${ndrewcoding.async.timeout:30s}") Duration timeout) {
+		this.animeService = animeService;
+		this.threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("anime-async-"));
+		this.executorService = new DelegatingSecurityContextExecutorService(
+				ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR));
+		// the completion stages run inside the submitted task, so calls chained on a result are attributed too
+		this.executor = task -> executorService.execute(JdbcRequestStatistics.propagate(task));
+		this.timeoutMillis = timeout.toMillis();
+	}
+
+	public CompletableFuture<Page<Anime>> listAll(Pageable pageable) {
+		return supply(() -> animeService.listAll(pageable));
+	}
+
+	public CompletableFuture<Slice<Anime>> listAllSlice(Pageable pageable) {
+		return supply(() -> animeService.listAllSlice(pageable));
+	}
+
+	public CompletableFuture<CursorPage<Anime>> listAllByCursor(String cursor, String sort, String direction, int size,
+			boolean count) {
+		return supply(() -> animeService.listAllByCursor(cursor, sort, direction, size, count));
+	}
+
+	public CompletableFuture<String> getCatalogVersion() {
+		return supply(animeService::getCatalogVersion);
+	}
+
+	public CompletableFuture<List<Anime>> listAllNonPageable() {
+		return supply(animeService::listAllNonPageable);
+	}
+
+	public CompletableFuture<List<Anime>> findByName(String name) {
+		return supply(() -> animeService.findByName(name));
+	}
+
+	public CompletableFuture<Anime> findAnimeByIdOrThrowBadRequestException(long id) {
+		return supply(() -> animeService.findAnimeByIdOrThrowBadRequestException(id));
+	}
+
+	public CompletableFuture<Page<Anime>> search(String query, Pageable pageable) {
+		return supply(() -> animeService.search(query, pageable));
+	}
+
+	public CompletableFuture<AnimeSaveResult> save(AnimePostRequestBody animePostRequestBody) {
+		return supply(() -> animeService.save(animePostRequestBody));
+	}
+
+	public CompletableFuture<Void> replace(AnimePutRequestBody animePutRequestBody) {
+		return run(() -> animeService.replace(animePutRequestBody));
+	}
+
+	public CompletableFuture<Void> delete(long id) {
+		return run(() -> animeService.delete(id));
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		executorService.shutdown();
+		threadPoolExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+		return CompletableFuture.supplyAsync(supplier, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private CompletableFuture<Void> run(Runnable runnable) {
+		return CompletableFuture.runAsync(runnable, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+}
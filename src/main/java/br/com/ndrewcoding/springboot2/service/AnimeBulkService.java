@@ -0,0 +1,320 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.exception.MalformedItemException;
+import br.com.ndrewcoding.springboot2.mapper.AnimeMapper;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkResponse;
+
+@Service
+public class AnimeBulkService {
+	private static final String UPDATE_NAME_SQL = "update anime set name = ?, version = version + 1, updated_at = ? where id = ?";
+
+	private final AnimeRepository animeRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final Validator validator;
+	private final TransactionTemplate transactionTemplate;
+	private final ApplicationEventPublisher applicationEventPublisher;
+	private final int batchSize;
+
+	public AnimeBulkService(AnimeRepository animeRepository, JdbcTemplate jdbcTemplate, Validator validator,
+			PlatformTransactionManager transactionManager, ApplicationEventPublisher applicationEventPublisher,
+			@Value("${ndrewcoding.anime.bulk.batch-size:500}") int batchSize) {
+		this.animeRepository = animeRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.validator = validator;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.applicationEventPublisher = applicationEventPublisher;
+		this.batchSize = batchSize;
+	}
+
+	public AnimeBulkInsertResponse saveAll(Iterator<AnimePostRequestBody> animePostRequestBodies) {
+		return saveAll(animePostRequestBodies, false);
+	}
+
+	/**
+	 * Same as {@link #saveAll(Iterator)}, but a batch that fails for a transient reason, such as the database being
+	 * unreachable, throws instead of being reported as {@code FAILED}, so callers that must not lose animes can retry.
+	 * Batches committed before the failure are kept and come back as {@code EXISTING} on the retry.
+	 */
+	public AnimeBulkInsertResponse saveAllOrThrow(Iterator<AnimePostRequestBody> animePostRequestBodies) {
+		return saveAll(animePostRequestBodies, true);
+	}
+
+	private AnimeBulkInsertResponse saveAll(Iterator<AnimePostRequestBody> animePostRequestBodies,
+			boolean throwOnTransientFailure) {
+		List<AnimeBulkItemResult> results = new ArrayList<>();
+		List<AnimeBulkItemResult> pendingResults = new ArrayList<>(batchSize);
+		List<Anime> pendingAnimes = new ArrayList<>(batchSize);
+
+		while (animePostRequestBodies.hasNext()) {
+			AnimeBulkItemResult result = AnimeBulkItemResult.builder().index(results.size()).build();
+			results.add(result);
+
+			AnimePostRequestBody animePostRequestBody;
+			try {
+				animePostRequestBody = animePostRequestBodies.next();
+			} catch (MalformedItemException exception) {
+				result.setStatus(AnimeBulkItemResult.Status.INVALID);
+				result.setMessage(exception.getMessage());
+				continue;
+			}
+
+			String violations = validate(animePostRequestBody);
+			if (violations != null) {
+				result.setStatus(AnimeBulkItemResult.Status.INVALID);
+				result.setMessage(violations);
+				continue;
+			}
+
+			pendingResults.add(result);
+			pendingAnimes.add(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+			if (pendingAnimes.size() == batchSize) {
+				insertBatch(pendingAnimes, pendingResults, throwOnTransientFailure);
+			}
+		}
+		insertBatch(pendingAnimes, pendingResults, throwOnTransientFailure);
+
+		Map<AnimeBulkItemResult.Status, Long> counts = results.stream()
+				.collect(Collectors.groupingBy(AnimeBulkItemResult::getStatus, Collectors.counting()));
+		long created = counts.getOrDefault(AnimeBulkItemResult.Status.CREATED, 0L);
+		long existing = counts.getOrDefault(AnimeBulkItemResult.Status.EXISTING, 0L);
+		return AnimeBulkInsertResponse.builder().created(created).existing(existing)
+				.rejected(results.size() - created - existing).items(results).build();
+	}
+
+	/**
+	 * Renames the animes in batched updates, one transaction per batch. Every item is validated up front and a batch
+	 * the database rejects, such as one renaming an anime to a name another anime has, is retried one anime at a time,
+	 * so only the offending items are reported as rejected and the response always accounts for the committed ones.
+	 */
+	public AnimeBulkResponse replaceAll(List<AnimePutRequestBody> animePutRequestBodies) {
+		Map<Long, String> namesById = new LinkedHashMap<>();
+		Map<Long, Integer> indexesById = new HashMap<>();
+		List<AnimeBulkItemResult> rejected = new ArrayList<>();
+		for (int i = 0; i < animePutRequestBodies.size(); i++) {
+			AnimePutRequestBody animePutRequestBody = animePutRequestBodies.get(i);
+			String violations = validate(animePutRequestBody);
+			if (violations != null) {
+				rejected.add(AnimeBulkItemResult.builder().index(i).status(AnimeBulkItemResult.Status.INVALID)
+						.id(animePutRequestBody == null ? null : animePutRequestBody.getId()).message(violations)
+						.build());
+				continue;
+			}
+			namesById.put(animePutRequestBody.getId(), animePutRequestBody.getName());
+			indexesById.put(animePutRequestBody.getId(), i);
+		}
+
+		List<Long> affectedIds = new ArrayList<>();
+		List<Long> missingIds = new ArrayList<>();
+		for (List<Long> ids : chunk(namesById.keySet())) {
+			try {
+				collect(ids, updateNames(ids, namesById), affectedIds, missingIds);
+			} catch (RuntimeException exception) {
+				if (isTransient(exception)) {
+					ids.forEach(id -> rejected.add(failed(indexesById.get(id), id, exception)));
+					continue;
+				}
+				for (Long id : ids) {
+					try {
+						collect(List.of(id), updateNames(List.of(id), namesById), affectedIds, missingIds);
+					} catch (RuntimeException rowException) {
+						rejected.add(failed(indexesById.get(id), id, rowException));
+					}
+				}
+			}
+		}
+		rejected.sort(Comparator.comparingInt(AnimeBulkItemResult::getIndex));
+		return AnimeBulkResponse.builder().affectedIds(affectedIds).missingIds(missingIds).rejected(rejected).build();
+	}
+
+	private List<Long> updateNames(List<Long> ids, Map<Long, String> namesById) {
+		return transactionTemplate.execute(status -> {
+			Timestamp updatedAt = Timestamp.from(Instant.now());
+			List<Object[]> batchArgs = new ArrayList<>(ids.size());
+			ids.forEach(id -> batchArgs.add(new Object[] { namesById.get(id), updatedAt, id }));
+			int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_NAME_SQL, batchArgs);
+
+			List<Long> updatedIds = new ArrayList<>(ids.size());
+			List<Long> unknownIds = new ArrayList<>();
+			for (int i = 0; i < ids.size(); i++) {
+				if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+					unknownIds.add(ids.get(i));
+				} else if (updateCounts[i] > 0) {
+					updatedIds.add(ids.get(i));
+				}
+			}
+			if (!unknownIds.isEmpty()) {
+				updatedIds.addAll(animeRepository.findIdsByIdIn(unknownIds));
+			}
+			publishAnimeChanged(AnimeChangedEvent.Type.UPDATED, updatedIds);
+			return updatedIds;
+		});
+	}
+
+	public AnimeBulkResponse deleteAll(Collection<Long> animeIds) {
+		List<Long> affectedIds = new ArrayList<>();
+		List<Long> missingIds = new ArrayList<>();
+		for (List<Long> ids : chunk(new LinkedHashSet<>(animeIds))) {
+			transactionTemplate.executeWithoutResult(status -> {
+				List<Long> existingIds = animeRepository.findIdsByIdIn(ids);
+				if (!existingIds.isEmpty()) {
+					animeRepository.deleteByIdIn(existingIds);
+				}
+				publishAnimeChanged(AnimeChangedEvent.Type.DELETED, existingIds);
+				collect(ids, existingIds, affectedIds, missingIds);
+			});
+		}
+		return AnimeBulkResponse.builder().affectedIds(affectedIds).missingIds(missingIds).build();
+	}
+
+	private List<List<Long>> chunk(Collection<Long> ids) {
+		List<Long> orderedIds = new ArrayList<>(ids);
+		List<List<Long>> chunks = new ArrayList<>();
+		for (int from = 0; from < orderedIds.size(); from += batchSize) {
+			chunks.add(orderedIds.subList(from, Math.min(from + batchSize, orderedIds.size())));
+		}
+		return chunks;
+	}
+
+	private void collect(List<Long> ids, Collection<Long> foundIds, List<Long> affectedIds, List<Long> missingIds) {
+		Set<Long> found = new HashSet<>(foundIds);
+		ids.forEach(id -> (found.contains(id) ? affectedIds : missingIds).add(id));
+	}
+
+	private void publishAnimeChanged(AnimeChangedEvent.Type type, Collection<Long> ids) {
+		if (!ids.isEmpty()) {
+			applicationEventPublisher.publishEvent(new AnimeChangedEvent(type, new HashSet<>(ids), null));
+		}
+	}
+
+	private void insertBatch(List<Anime> animes, List<AnimeBulkItemResult> results, boolean throwOnTransientFailure) {
+		if (animes.isEmpty()) {
+			return;
+		}
+		try {
+			insert(animes, results);
+		} catch (RuntimeException exception) {
+			if (isTransient(exception)) {
+				if (throwOnTransientFailure) {
+					throw exception;
+				}
+				results.forEach(result -> fail(result, exception));
+			} else {
+				// one anime the database rejects, such as a name too long for the column, must not fail the others
+				for (int i = 0; i < animes.size(); i++) {
+					insertOne(animes.get(i), results.get(i), throwOnTransientFailure);
+				}
+			}
+		}
+		animes.clear();
+		results.clear();
+	}
+
+	private void insertOne(Anime anime, AnimeBulkItemResult result, boolean throwOnTransientFailure) {
+		try {
+			// the failed batch may have assigned an id and a version that were rolled back
+			insert(List.of(anime.toBuilder().id(null).version(null).updatedAt(null).build()), List.of(result));
+		} catch (RuntimeException exception) {
+			if (throwOnTransientFailure && isTransient(exception)) {
+				throw exception;
+			}
+			fail(result, exception);
+		}
+	}
+
+	private void insert(List<Anime> animes, List<AnimeBulkItemResult> results) {
+		transactionTemplate.executeWithoutResult(status -> {
+			Map<String, Long> existingIdsByName = new HashMap<>();
+			animeRepository.findByNameIn(animes.stream().map(Anime::getName).collect(Collectors.toSet()))
+					.forEach(anime -> existingIdsByName.put(anime.getName(), anime.getId()));
+
+			Map<String, Anime> newAnimesByName = new LinkedHashMap<>();
+			animes.stream().filter(anime -> !existingIdsByName.containsKey(anime.getName()))
+					.forEach(anime -> newAnimesByName.putIfAbsent(anime.getName(), anime));
+			if (!newAnimesByName.isEmpty()) {
+				animeRepository.saveAll(newAnimesByName.values());
+				applicationEventPublisher.publishEvent(new AnimeChangedEvent(AnimeChangedEvent.Type.CREATED,
+						newAnimesByName.values().stream().map(Anime::getId).collect(Collectors.toSet()),
+						new HashSet<>(newAnimesByName.keySet())));
+			}
+
+			for (int i = 0; i < animes.size(); i++) {
+				Anime anime = animes.get(i);
+				Anime insertedAnime = newAnimesByName.get(anime.getName());
+				AnimeBulkItemResult result = results.get(i);
+				if (insertedAnime == anime) {
+					result.setStatus(AnimeBulkItemResult.Status.CREATED);
+					result.setId(anime.getId());
+				} else {
+					result.setStatus(AnimeBulkItemResult.Status.EXISTING);
+					result.setId(insertedAnime != null ? insertedAnime.getId() : existingIdsByName.get(anime.getName()));
+				}
+			}
+		});
+	}
+
+	private static AnimeBulkItemResult failed(int index, Long id, RuntimeException exception) {
+		return AnimeBulkItemResult.builder().index(index).status(AnimeBulkItemResult.Status.FAILED).id(id)
+				.message(NestedExceptionUtils.getMostSpecificCause(exception).getMessage()).build();
+	}
+
+	private static void fail(AnimeBulkItemResult result, RuntimeException exception) {
+		result.setStatus(AnimeBulkItemResult.Status.FAILED);
+		result.setId(null);
+		result.setMessage(NestedExceptionUtils.getMostSpecificCause(exception).getMessage());
+	}
+
+	private static boolean isTransient(RuntimeException exception) {
+		return exception instanceof TransientDataAccessException || exception instanceof RecoverableDataAccessException
+				|| exception instanceof DataAccessResourceFailureException
+				|| exception instanceof CannotCreateTransactionException;
+	}
+
+	private <T> String validate(T requestBody) {
+		if (requestBody == null) {
+			return "The anime cannot be null";
+		}
+		Set<ConstraintViolation<T>> violations = validator.validate(requestBody);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+	}
+}
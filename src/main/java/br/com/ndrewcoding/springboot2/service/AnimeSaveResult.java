@@ -0,0 +1,12 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AnimeSaveResult {
+	private final Anime anime;
+	private final boolean created;
+}
@@ -1,56 +1,210 @@
 package br.com.ndrewcoding.springboot2.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.ndrewcoding.springboot2.cache.AnimeCache;
+import br.com.ndrewcoding.springboot2.cache.AnimeCatalogVersion;
+import br.com.ndrewcoding.springboot2.cache.AnimeCountCache;
+import br.com.ndrewcoding.springboot2.cache.AnimeLoadCoalescer;
 import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.exception.AnimeNotFoundException;
 import br.com.ndrewcoding.springboot2.exception.BadRequestException;
 import br.com.ndrewcoding.springboot2.mapper.AnimeMapper;
+import br.com.ndrewcoding.springboot2.repository.AnimeKeysetRepository;
 import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
 import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
 import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.search.AnimeSearchIndex;
+import br.com.ndrewcoding.springboot2.util.SeekCursor;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
+import br.com.ndrewcoding.springboot2.wrapper.SearchPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class AnimeService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+    private static final String TIMER = "ndrewcoding.anime.service";
 
     private final AnimeRepository animeRepository;
+    private final EntityManager entityManager;
+    private final AnimeCountCache animeCountCache;
+    private final AnimeCache animeCache;
+    private final AnimeLoadCoalescer animeLoadCoalescer;
+    private final AnimeCatalogVersion animeCatalogVersion;
+    private final AnimeSearchIndex animeSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Timed(TIMER)
+    public String getCatalogVersion() {
+        return animeCatalogVersion.get(animeRepository::findCatalogStats);
+    }
 
+    // no surrounding transaction, so a count cache miss gets its own connection and can be routed to the primary
+    @Timed(TIMER)
     public Page<Anime> listAll(Pageable pageable) {
-        return animeRepository.findAll(pageable);
+        return PageableExecutionUtils.getPage(animeRepository.findAllBy(pageable).getContent(), pageable,
+                () -> animeCountCache.get(animeRepository::count));
     }
 
+    @Timed(TIMER)
+    @Transactional(readOnly = true)
+    public Slice<Anime> listAllSlice(Pageable pageable) {
+        return animeRepository.findAllBy(pageable);
+    }
+
+    @Timed(TIMER)
+    @Transactional(readOnly = true)
     public List<Anime> listAllNonPageable() {
-        return animeRepository.findAll();
+        return animeRepository.findAllBy();
     }
 
+    // same as listAll, the keyset query opens its own read-only transaction and the total comes from the count cache
+    @Timed(TIMER)
+    public CursorPage<Anime> listAllByCursor(String cursor, String sort, String direction, int size, boolean count) {
+        SeekCursor seekCursor = cursor == null ? null : SeekCursor.decode(cursor);
+        String property = seekCursor == null ? sort : seekCursor.getProperty();
+        Sort.Direction sortDirection = seekCursor == null ? toSortDirection(direction) : seekCursor.getDirection();
+        boolean backward = seekCursor != null && seekCursor.isBackward();
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+
+        if (!AnimeKeysetRepository.SORTABLE_PROPERTIES.contains(property)) {
+            throw new BadRequestException("Sort must be one of " + AnimeKeysetRepository.SORTABLE_PROPERTIES);
+        }
+
+        Sort.Direction fetchDirection = backward == sortDirection.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        List<Anime> animes = new ArrayList<>(animeRepository.findByKeyset(property, fetchDirection,
+                seekCursor == null ? null : seekCursor.toBoundary(), pageSize + 1));
+
+        boolean hasMore = animes.size() > pageSize;
+        if (hasMore) {
+            animes.remove(pageSize);
+        }
+        if (backward) {
+            Collections.reverse(animes);
+        }
+
+        boolean hasNext = backward ? seekCursor != null : hasMore;
+        boolean hasPrev = backward ? hasMore : seekCursor != null;
+
+        return CursorPage.<Anime>builder()
+                .content(animes)
+                .size(pageSize)
+                .nextCursor(hasNext && !animes.isEmpty()
+                        ? SeekCursor.of(property, sortDirection, false, animes.get(animes.size() - 1)).encode() : null)
+                .prevCursor(hasPrev && !animes.isEmpty()
+                        ? SeekCursor.of(property, sortDirection, true, animes.get(0)).encode() : null)
+                .totalElements(count ? animeCountCache.get(animeRepository::count) : null)
+                .build();
+    }
+
+    @Timed(TIMER)
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Anime> animeConsumer) {
+        try (Stream<Anime> animes = animeRepository.streamAll()) {
+            animes.forEach(anime -> {
+                animeConsumer.accept(anime);
+                entityManager.detach(anime);
+            });
+        }
+    }
+
+    @Timed(TIMER)
     public List<Anime> findByName(String name) {
-        return animeRepository.findByName(name);
+        return animeCache.getByName(name,
+                missingName -> animeLoadCoalescer.loadByName(missingName, animeRepository::findByName));
+    }
+
+    @Timed(TIMER)
+    @Transactional(readOnly = true)
+    public Page<Anime> search(String query, Pageable pageable) {
+        if (!animeSearchIndex.isReady()) {
+            return animeRepository.findByNameStartingWithIgnoreCase(query, pageable);
+        }
+
+        SearchPage<Long> rankedIds = animeSearchIndex.search(query, pageable);
+        Map<Long, Anime> animesById = animeRepository.findAllById(rankedIds.getContent()).stream()
+                .collect(Collectors.toMap(Anime::getId, Function.identity()));
+        List<Anime> animes = rankedIds.getContent().stream()
+                .map(animesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new SearchPage<>(animes, pageable, rankedIds.getTotalElements(), rankedIds.isTotalApproximate());
     }
 
+    @Timed(TIMER)
     public Anime findAnimeByIdOrThrowBadRequestException(long id) {
-        return animeRepository.findById(id)
-                .orElseThrow(() -> new BadRequestException("Anime not Found"));
+        return animeCache.getById(id,
+                missingId -> animeLoadCoalescer.loadById(missingId, animeRepository::findById))
+                .orElseThrow(AnimeNotFoundException::new);
     }
 
+    @Timed(TIMER)
     @Transactional
-    public Anime save(AnimePostRequestBody animePostRequestBody) {
-        return animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+    public AnimeSaveResult save(AnimePostRequestBody animePostRequestBody) {
+        Anime anime = AnimeMapper.INSTANCE.toAnime(animePostRequestBody);
+        boolean created = animeRepository.insertIfAbsent(anime);
+        if (created) {
+            publishAnimeChanged(AnimeChangedEvent.Type.CREATED, anime.getId(), Set.of(anime.getName()));
+        }
+        return new AnimeSaveResult(anime, created);
     }
 
+    @Timed(TIMER)
+    @Transactional
     public void delete(long id) {
-        animeRepository.delete(findAnimeByIdOrThrowBadRequestException(id));
+        Anime savedAnime = findAnimeForUpdate(id);
+        animeRepository.delete(savedAnime);
+        publishAnimeChanged(AnimeChangedEvent.Type.DELETED, id, Set.of(savedAnime.getName()));
     }
 
+    @Timed(TIMER)
+    @Transactional
     public void replace(AnimePutRequestBody animePutRequestBody) {
-        Anime savedAnime = findAnimeByIdOrThrowBadRequestException(animePutRequestBody.getId());
+        Anime savedAnime = findAnimeForUpdate(animePutRequestBody.getId());
         Anime anime = AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
         anime.setId(savedAnime.getId());
+        anime.setVersion(savedAnime.getVersion());
         animeRepository.save(anime);
+        publishAnimeChanged(AnimeChangedEvent.Type.UPDATED, savedAnime.getId(),
+                new HashSet<>(Arrays.asList(savedAnime.getName(), anime.getName())));
+    }
+
+    // writes check the version of the stored row, so they read it in their transaction instead of from the cache
+    private Anime findAnimeForUpdate(long id) {
+        return animeRepository.findById(id).orElseThrow(AnimeNotFoundException::new);
+    }
+
+    private void publishAnimeChanged(AnimeChangedEvent.Type type, long id, Set<String> names) {
+        applicationEventPublisher.publishEvent(new AnimeChangedEvent(type, Set.of(id), names));
+    }
+
+    private Sort.Direction toSortDirection(String direction) {
+        return Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new BadRequestException("Direction must be ASC or DESC"));
     }
 }
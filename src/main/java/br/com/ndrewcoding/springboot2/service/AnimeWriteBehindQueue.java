@@ -0,0 +1,395 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ndrewcoding.springboot2.exception.AnimeQueueFullException;
+import br.com.ndrewcoding.springboot2.exception.BadRequestException;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeQueuedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Accepts anime creations into a bounded queue and inserts them in batches from a single worker thread.
+ * <p>
+ * Every accepted anime is appended to a journal before it is acknowledged and marked as flushed once its batch
+ * commits, so animes still pending when the process stops are queued again on the next start. A replayed anime that
+ * had in fact been inserted comes back as {@code EXISTING}, since creation is keyed by name. Once the journal grows past
+ * {@code journal-compact-threshold} it is rewritten with only the animes still pending, so sustained bursts that never
+ * drain the queue do not grow it without bound.
+ * <p>
+ * Pending animes report {@code QUEUED} for as long as they wait, only the final outcome expires after
+ * {@code status-ttl}. A batch is retried while the database is unreachable, any other failure reports its animes as
+ * {@code FAILED} so the animes queued behind it keep moving.
+ * <p>
+ * Concurrent creations share their journal fsync: each one appends under the lock and then waits until a single
+ * writer has forced the journal past its entry, so a burst of requests pays for a few fsyncs instead of one each.
+ */
+@Log4j2
+@Service
+@ConditionalOnProperty(prefix = "ndrewcoding.anime.write-behind", name = "enabled", havingValue = "true")
+public class AnimeWriteBehindQueue implements DisposableBean {
+	private static final char ACCEPTED = '+';
+	private static final char FLUSHED = '-';
+
+	private final AnimeBulkService animeBulkService;
+	private final ObjectMapper objectMapper;
+	private final int batchSize;
+	private final long retryDelayMillis;
+	private final Path journalPath;
+	private final long journalCompactThreshold;
+	private final BlockingQueue<QueuedAnime> queue;
+	private final Set<String> queuedTrackingIds = ConcurrentHashMap.newKeySet();
+	private final Cache<String, AnimeQueuedResponse> statuses;
+	private final Counter rejected;
+	private final DistributionSummary batchSizes;
+	private final Thread worker = new Thread(this::drain, "anime-write-behind");
+	private final ReentrantLock syncLock = new ReentrantLock();
+	private final Condition synced = syncLock.newCondition();
+	private FileChannel journal;
+	private long compactedJournalSize;
+	private long appendedSequence;
+	private long syncedSequence;
+	private boolean syncing;
+	private volatile boolean running = true;
+
+	public AnimeWriteBehindQueue(AnimeBulkService animeBulkService, ObjectMapper objectMapper,
+			MeterRegistry meterRegistry, @Value("${ndrewcoding.anime.write-behind.capacity:10000}") int capacity,
+			@Value("${ndrewcoding.anime.write-behind.batch-size:500}") int batchSize,
+			@Value("${ndrewcoding.anime.write-behind.journal:data/anime-write-behind.journal}") Path journalPath,
+			@Value("${ndrewcoding.anime.write-behind.status-ttl:1h}") Duration statusTtl,
+			@Value("${ndrewcoding.anime.write-behind.retry-delay:1s}") Duration retryDelay,
+			@Value("${ndrewcoding.anime.write-behind.journal-compact-threshold:64MB}") DataSize journalCompactThreshold)
+			throws IOException {
+		this.animeBulkService = animeBulkService;
+		this.objectMapper = objectMapper;
+		this.batchSize = batchSize;
+		this.retryDelayMillis = retryDelay.toMillis();
+		this.journalPath = journalPath;
+		this.journalCompactThreshold = journalCompactThreshold.toBytes();
+		this.statuses = Caffeine.newBuilder().expireAfterWrite(statusTtl).build();
+
+		Files.createDirectories(journalPath.toAbsolutePath().getParent());
+		Collection<QueuedAnime> pending = replayJournal();
+		this.queue = new ArrayBlockingQueue<>(Math.max(capacity, pending.size()), false, pending);
+		pending.forEach(queuedAnime -> queuedTrackingIds.add(queuedAnime.trackingId));
+		this.journal = openJournal();
+		this.compactedJournalSize = journal.size();
+
+		Gauge.builder("ndrewcoding.anime.queue.size", queue, Collection::size).register(meterRegistry);
+		this.rejected = meterRegistry.counter("ndrewcoding.anime.queue.rejected");
+		this.batchSizes = DistributionSummary.builder("ndrewcoding.anime.queue.batch.size").register(meterRegistry);
+		worker.setDaemon(true);
+		if (!pending.isEmpty()) {
+			log.info("Queued {} animes left pending in {}", pending.size(), journalPath);
+		}
+	}
+
+	public AnimeQueuedResponse enqueue(AnimePostRequestBody animePostRequestBody) {
+		String trackingId = UUID.randomUUID().toString();
+		String json = toJson(animePostRequestBody);
+		AnimeQueuedResponse status = queued(trackingId);
+		long sequence;
+		synchronized (this) {
+			if (queue.remainingCapacity() == 0) {
+				rejected.increment();
+				throw new AnimeQueueFullException();
+			}
+			try {
+				append(ACCEPTED + trackingId + " " + json + "\n");
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+			sequence = ++appendedSequence;
+			queuedTrackingIds.add(trackingId);
+			queue.add(new QueuedAnime(trackingId, animePostRequestBody));
+		}
+		try {
+			sync(sequence);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return status;
+	}
+
+	public AnimeQueuedResponse status(String trackingId) {
+		if (queuedTrackingIds.contains(trackingId)) {
+			return queued(trackingId);
+		}
+		AnimeQueuedResponse status = statuses.getIfPresent(trackingId);
+		if (status == null) {
+			throw new BadRequestException("Tracking id not found");
+		}
+		return status;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		worker.start();
+	}
+
+	@Override
+	public void destroy() throws IOException, InterruptedException {
+		running = false;
+		worker.interrupt();
+		worker.join(TimeUnit.SECONDS.toMillis(10));
+		synchronized (this) {
+			journal.close();
+		}
+	}
+
+	// one writer forces the journal for every entry appended so far while the writers behind it wait for its fsync
+	private void sync(long sequence) throws IOException {
+		syncLock.lock();
+		try {
+			while (syncing && syncedSequence < sequence) {
+				synced.awaitUninterruptibly();
+			}
+			if (syncedSequence >= sequence) {
+				return;
+			}
+			syncing = true;
+		} finally {
+			syncLock.unlock();
+		}
+
+		FileChannel channel;
+		long appended;
+		synchronized (this) {
+			channel = journal;
+			appended = appendedSequence;
+		}
+		long forcedSequence = 0;
+		try {
+			try {
+				channel.force(false);
+			} catch (ClosedChannelException exception) {
+				synchronized (this) {
+					// a compaction swapped the journal after forcing every pending entry into the new one
+					if (journal == channel) {
+						throw exception;
+					}
+				}
+			}
+			forcedSequence = appended;
+		} finally {
+			syncLock.lock();
+			try {
+				syncing = false;
+				syncedSequence = Math.max(syncedSequence, forcedSequence);
+				synced.signalAll();
+			} finally {
+				syncLock.unlock();
+			}
+		}
+	}
+
+	private void drain() {
+		List<QueuedAnime> batch = new ArrayList<>(batchSize);
+		while (running) {
+			try {
+				QueuedAnime first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				flush(batch);
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Throwable throwable) {
+				log.error("Could not flush {} queued animes, reporting them as failed", batch.size(), throwable);
+				reportFailed(batch, throwable);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void flush(List<QueuedAnime> batch) throws InterruptedException {
+		AnimeBulkInsertResponse response = null;
+		RuntimeException failure = null;
+		while (response == null && failure == null) {
+			try {
+				response = animeBulkService.saveAllOrThrow(batch.stream()
+						.map(queuedAnime -> queuedAnime.animePostRequestBody).iterator());
+			} catch (TransientDataAccessException | DataAccessResourceFailureException
+					| CannotCreateTransactionException exception) {
+				log.warn("Could not insert {} queued animes, retrying in {} ms", batch.size(), retryDelayMillis,
+						exception);
+				Thread.sleep(retryDelayMillis);
+			} catch (RuntimeException exception) {
+				log.error("Could not insert {} queued animes, reporting them as failed", batch.size(), exception);
+				failure = exception;
+			}
+		}
+		batchSizes.record(batch.size());
+
+		StringBuilder flushed = new StringBuilder();
+		batch.forEach(queuedAnime -> flushed.append(FLUSHED).append(queuedAnime.trackingId).append('\n'));
+		synchronized (this) {
+			try {
+				if (queue.isEmpty()) {
+					journal.truncate(0);
+					compactedJournalSize = 0;
+				} else if (journal.size() > Math.max(journalCompactThreshold, 2 * compactedJournalSize)) {
+					compactJournal();
+				} else {
+					append(flushed.toString());
+				}
+			} catch (IOException exception) {
+				log.error("Could not mark {} animes as flushed in {}, they will be replayed on the next start",
+						batch.size(), journalPath, exception);
+			}
+		}
+
+		if (response == null) {
+			reportFailed(batch, failure);
+			return;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			String trackingId = batch.get(i).trackingId;
+			AnimeBulkItemResult item = response.getItems().get(i);
+			statuses.put(trackingId, AnimeQueuedResponse.builder().trackingId(trackingId)
+					.status(AnimeQueuedResponse.Status.valueOf(item.getStatus().name())).id(item.getId())
+					.message(item.getMessage()).build());
+			queuedTrackingIds.remove(trackingId);
+		}
+	}
+
+	private void reportFailed(List<QueuedAnime> batch, Throwable failure) {
+		for (QueuedAnime queuedAnime : batch) {
+			statuses.put(queuedAnime.trackingId, AnimeQueuedResponse.builder().trackingId(queuedAnime.trackingId)
+					.status(AnimeQueuedResponse.Status.FAILED).message(failure.getMessage()).build());
+			queuedTrackingIds.remove(queuedAnime.trackingId);
+		}
+	}
+
+	// callers hold the lock, so no anime is accepted into the queue while the journal is swapped
+	private void compactJournal() throws IOException {
+		journal.close();
+		writeJournal(queue);
+		journal = openJournal();
+		compactedJournalSize = journal.size();
+		log.info("Compacted {} to the {} animes still pending", journalPath, queue.size());
+	}
+
+	private Collection<QueuedAnime> replayJournal() throws IOException {
+		Map<String, QueuedAnime> pending = new LinkedHashMap<>();
+		if (Files.exists(journalPath)) {
+			try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					String[] entry = line.substring(1).split(" ", 2);
+					if (line.charAt(0) == FLUSHED) {
+						pending.remove(entry[0]);
+					} else if (line.charAt(0) == ACCEPTED && entry.length == 2) {
+						try {
+							pending.put(entry[0], new QueuedAnime(entry[0],
+									objectMapper.readValue(entry[1], AnimePostRequestBody.class)));
+						} catch (JsonProcessingException exception) {
+							log.warn("Skipping a torn journal entry for tracking id {}", entry[0]);
+						}
+					}
+				}
+			}
+		}
+
+		writeJournal(pending.values());
+		return pending.values();
+	}
+
+	private void writeJournal(Collection<QueuedAnime> pending) throws IOException {
+		Path compacted = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+		try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+			for (QueuedAnime queuedAnime : pending) {
+				writer.write(ACCEPTED + queuedAnime.trackingId + " " + toJson(queuedAnime.animePostRequestBody) + "\n");
+			}
+		}
+		try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+			compactedChannel.force(false);
+		}
+		Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private FileChannel openJournal() throws IOException {
+		return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	private void append(String entries) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(entries.getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			journal.write(buffer);
+		}
+	}
+
+	private String toJson(AnimePostRequestBody animePostRequestBody) {
+		try {
+			return objectMapper.writeValueAsString(animePostRequestBody);
+		} catch (JsonProcessingException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	private static AnimeQueuedResponse queued(String trackingId) {
+		return AnimeQueuedResponse.builder().trackingId(trackingId).status(AnimeQueuedResponse.Status.QUEUED).build();
+	}
+
+	@RequiredArgsConstructor
+	private static class QueuedAnime {
+		private final String trackingId;
+		private final AnimePostRequestBody animePostRequestBody;
+	}
+}
@@ -0,0 +1,61 @@
+package br.com.ndrewcoding.springboot2.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import br.com.ndrewcoding.springboot2.exception.MalformedItemException;
+
+/**
+ * Reads one JSON value per line, skipping blank lines. A line that cannot be read makes {@link #next()} throw a
+ * {@link MalformedItemException} and the iteration can go on with the following line.
+ */
+public class NdjsonIterator<T> implements Iterator<T> {
+	private final BufferedReader reader;
+	private final ObjectReader objectReader;
+	private String nextLine;
+	private int lineNumber;
+
+	public NdjsonIterator(BufferedReader reader, ObjectReader objectReader) {
+		this.reader = reader;
+		this.objectReader = objectReader;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (nextLine == null) {
+				String line = reader.readLine();
+				if (line == null) {
+					return false;
+				}
+				lineNumber++;
+				if (!line.isBlank()) {
+					nextLine = line;
+				}
+			}
+			return true;
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		String line = nextLine;
+		nextLine = null;
+		try {
+			return objectReader.readValue(line);
+		} catch (JsonProcessingException exception) {
+			throw new MalformedItemException("Line " + lineNumber + " is not valid: " + exception.getOriginalMessage());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package br.com.ndrewcoding.springboot2.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SeekCursor {
+	private static final String SEPARATOR = "|";
+
+	private final String property;
+	private final Sort.Direction direction;
+	private final boolean backward;
+	private final long id;
+	private final String value;
+
+	public static SeekCursor of(String property, Sort.Direction direction, boolean backward, Anime anime) {
+		return new SeekCursor(property, direction, backward, anime.getId(), "name".equals(property) ? anime.getName() : null);
+	}
+
+	public static SeekCursor decode(String token) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 5);
+			return new SeekCursor(parts[0], Sort.Direction.valueOf(parts[1]), "b".equals(parts[2]),
+					Long.parseLong(parts[3]), parts[4].isEmpty() ? null : parts[4]);
+		} catch (RuntimeException exception) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+	public String encode() {
+		String raw = String.join(SEPARATOR, property, direction.name(), backward ? "b" : "f", String.valueOf(id),
+				value == null ? "" : value);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Anime toBoundary() {
+		return Anime.builder().id(id).name(value).build();
+	}
+}
@@ -0,0 +1,71 @@
+package br.com.ndrewcoding.springboot2.util;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class SingleFlight<K, V> {
+	public static final String LOADS = "ndrewcoding.singleflight.loads";
+	public static final String COALESCED = "ndrewcoding.singleflight.coalesced";
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final Counter loads;
+	private final Counter coalesced;
+
+	public SingleFlight(MeterRegistry meterRegistry, String name) {
+		this.loads = Counter.builder(LOADS).tag("name", name).register(meterRegistry);
+		this.coalesced = Counter.builder(COALESCED).tag("name", name).register(meterRegistry);
+		Gauge.builder("ndrewcoding.singleflight.in-flight", inFlight, Map::size).tag("name", name)
+				.register(meterRegistry);
+	}
+
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+		if (leader != null) {
+			coalesced.increment();
+			return join(leader);
+		}
+
+		loads.increment();
+		try {
+			V value = loader.get();
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error exception) {
+			flight.completeExceptionally(exception);
+			throw exception;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	public void forget(Collection<K> keys) {
+		keys.forEach(inFlight::remove);
+	}
+
+	public void forgetAll() {
+		inFlight.clear();
+	}
+
+	private static <V> V join(CompletableFuture<V> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException exception) {
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			if (exception.getCause() instanceof Error) {
+				throw (Error) exception.getCause();
+			}
+			throw exception;
+		}
+	}
+}
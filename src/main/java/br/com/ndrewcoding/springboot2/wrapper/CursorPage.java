@@ -0,0 +1,23 @@
+package br.com.ndrewcoding.springboot2.wrapper;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+	private List<T> content;
+	private int size;
+	private String nextCursor;
+	private String prevCursor;
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long totalElements;
+}
@@ -0,0 +1,29 @@
+package br.com.ndrewcoding.springboot2.wrapper;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import lombok.Getter;
+
+/**
+ * A page whose {@code totalElements} is only a lower bound when {@code totalApproximate} is set, because the search
+ * stopped looking once it had ranked enough matches for the requested page. More titles match in that case, so there
+ * is always a next page.
+ */
+@Getter
+public class SearchPage<T> extends PageImpl<T> {
+	private static final long serialVersionUID = 1L;
+	private final boolean totalApproximate;
+
+	public SearchPage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+		super(content, pageable, total);
+		this.totalApproximate = totalApproximate;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return totalApproximate || super.hasNext();
+	}
+}
@@ -0,0 +1,22 @@
+package br.com.ndrewcoding.springboot2.wrapper;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonCreator.Mode;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class SliceResponse<T> extends SliceImpl<T> {
+	private static final long serialVersionUID = 1L;
+
+	@JsonCreator(mode = Mode.PROPERTIES)
+	public SliceResponse(@JsonProperty("content") List<T> content, @JsonProperty("number") int number,
+			@JsonProperty("size") int size, @JsonProperty("last") boolean last,
+			@JsonProperty("pageable") JsonNode pageable, @JsonProperty("sort") JsonNode sort) {
+		super(content, PageRequest.of(number, size), !last);
+	}
+}
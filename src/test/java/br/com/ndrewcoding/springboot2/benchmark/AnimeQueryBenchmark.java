@@ -0,0 +1,99 @@
+package br.com.ndrewcoding.springboot2.benchmark;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.ndrewcoding.springboot2.Springboot2EssentialsApplication;
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+
+/**
+ * Compares the query behind {@code /animes} (one large page) and {@code /animes/all} (the whole catalog) when the
+ * animes are loaded as managed entities in a read-write transaction, as managed entities in a read-only transaction
+ * and as unmanaged instances built by a constructor expression. Run with {@code -prof gc} to see the allocation per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class AnimeQueryBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int PAGE_SIZE = 1_000;
+
+    @Param({"managed", "read-only", "unmanaged"})
+    private String loading;
+
+    private ConfigurableApplicationContext context;
+    private AnimeRepository animeRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(Springboot2EssentialsApplication.class,
+                "--spring.datasource.url=jdbc:h2:mem:query-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa", "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create", "--spring.devtools.restart.enabled=false", "--server.port=0",
+                "--ndrewcoding.search.index.enabled=false", "--logging.level.root=WARN");
+
+        Timestamp updatedAt = Timestamp.from(Instant.now());
+        List<Object[]> animes = new ArrayList<>(CATALOG_SIZE);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            animes.add(new Object[] { id, String.format("Anime %08d", id), updatedAt });
+        }
+        context.getBean(JdbcTemplate.class)
+                .batchUpdate("insert into anime (id, name, version, updated_at) values (?, ?, 0, ?)", animes);
+
+        animeRepository = context.getBean(AnimeRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(!"managed".equals(loading));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Anime> page() {
+        return transactionTemplate.execute(status -> "unmanaged".equals(loading)
+                ? animeRepository.findAllBy(PageRequest.of(1, PAGE_SIZE, Sort.by("id"))).getContent()
+                : entityManager.createQuery("select a from Anime a order by a.id", Anime.class)
+                        .setFirstResult(PAGE_SIZE).setMaxResults(PAGE_SIZE + 1).getResultList());
+    }
+
+    @Benchmark
+    public List<Anime> all() {
+        return transactionTemplate.execute(status -> "unmanaged".equals(loading) ? animeRepository.findAllBy()
+                : entityManager.createQuery("select a from Anime a", Anime.class).getResultList());
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.ndrewcoding.springboot2.benchmark;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import br.com.ndrewcoding.springboot2.controller.AnimeController;
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.exception.BadRequestException;
+import br.com.ndrewcoding.springboot2.exception.BadRequestExceptionDetails;
+import br.com.ndrewcoding.springboot2.handler.RestExceptionHandler;
+import br.com.ndrewcoding.springboot2.mapper.AnimeMapper;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.util.DateUtil;
+import br.com.ndrewcoding.springboot2.wrapper.PageableResponse;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class AnimeRequestPathBenchmark {
+    private AnimePostRequestBody animePostRequestBody;
+    private Anime anime;
+    private PageableResponse<Anime> animePage;
+    private ObjectWriter animeWriter;
+    private ObjectWriter animePageWriter;
+    private NdrewCodingUser user;
+    private RestExceptionHandler restExceptionHandler;
+    private BadRequestException badRequestException;
+    private MethodArgumentNotValidException methodArgumentNotValidException;
+    private WebRequest webRequest;
+    private DateUtil dateUtil;
+    private LocalDateTime localDateTime;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        animePostRequestBody = AnimePostRequestBody.builder().name("Hajime no Ippo").build();
+        anime = Anime.builder().id(1L).name("Hajime no Ippo").version(3L).updatedAt(Instant.now()).build();
+
+        List<Anime> animes = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            animes.add(anime.toBuilder().id(id).name("Anime " + id).build());
+        }
+        animePage = new PageableResponse<>(animes, 0, 20, 1000, false, true, 50, 20, null, null);
+
+        Jackson2ObjectMapperBuilder objectMapperBuilder = Jackson2ObjectMapperBuilder.json();
+        animeWriter = objectMapperBuilder.build().writerFor(Anime.class);
+        animePageWriter = objectMapperBuilder.build().writer();
+
+        user = NdrewCodingUser.builder().id(1L).name("Andrew Monteiro").username("andrew").password("{noop}secret")
+                .authorities("ROLE_USER,ROLE_ADMIN").build();
+
+        restExceptionHandler = new RestExceptionHandler();
+        badRequestException = new BadRequestException("Anime not Found");
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new AnimePostRequestBody(),
+                "animePostRequestBody");
+        bindingResult.addError(new FieldError("animePostRequestBody", "name", "The anime name cannot be empty"));
+        methodArgumentNotValidException = new MethodArgumentNotValidException(new MethodParameter(
+                AnimeController.class.getMethod("save", AnimePostRequestBody.class, String.class), 0), bindingResult);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("POST", "/animes/admin"));
+
+        dateUtil = new DateUtil();
+        localDateTime = LocalDateTime.of(2021, 1, 1, 12, 30, 45);
+    }
+
+    @Benchmark
+    public Anime mapperToAnime() {
+        return AnimeMapper.INSTANCE.toAnime(animePostRequestBody);
+    }
+
+    @Benchmark
+    public byte[] jacksonWriteAnime() throws JsonProcessingException {
+        return animeWriter.writeValueAsBytes(anime);
+    }
+
+    @Benchmark
+    public byte[] jacksonWritePageableResponse() throws JsonProcessingException {
+        return animePageWriter.writeValueAsBytes(animePage);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> userGetAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public ResponseEntity<BadRequestExceptionDetails> handleBadRequestException() {
+        return restExceptionHandler.handleBadRequestException(badRequestException);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> handleMethodArgumentNotValid() throws Exception {
+        return restExceptionHandler.handleException(methodArgumentNotValidException, webRequest);
+    }
+
+    @Benchmark
+    public String dateUtilFormat() {
+        return dateUtil.formatLocalDateTimeToDatabaseStyle(localDateTime);
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.ndrewcoding.springboot2.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import br.com.ndrewcoding.springboot2.cache.NdrewCodingUserCache;
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.security.CachingPasswordEncoder;
+import br.com.ndrewcoding.springboot2.security.CompositeUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Authenticates through a {@link ProviderManager} wired as {@code SecurityConfig} wires it: one
+ * {@link DaoAuthenticationProvider} over the in-memory and the database users, with the user cache and credential
+ * erasure. It covers everything behind {@code AuthenticationManager.authenticate} but not the HTTP filter chain; the
+ * database lookup is an in-memory stand-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthenticationBenchmark {
+    @Param({"bcrypt", "cached"})
+    private String passwordEncoder;
+
+    @Param({"andrew", "andrew2"})
+    private String username;
+
+    private AuthenticationManager authenticationManager;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder delegatingPasswordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        String encodedPassword = delegatingPasswordEncoder.encode("ndrewcoding");
+        NdrewCodingUser databaseUser = NdrewCodingUser.builder().id(1L).name("Andrew Monteiro").username("andrew")
+                .password(encodedPassword).authorities("ROLE_USER,ROLE_ADMIN").build();
+        InMemoryUserDetailsManager inMemoryUsers = new InMemoryUserDetailsManager(
+                User.withUsername("andrew2").password(encodedPassword).roles("USER", "ADMIN").build());
+
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(new CompositeUserDetailsService(inMemoryUsers, name -> {
+            if (!databaseUser.getUsername().equals(name)) {
+                throw new UsernameNotFoundException(name);
+            }
+            return databaseUser;
+        }));
+        daoAuthenticationProvider.setPasswordEncoder("cached".equals(passwordEncoder)
+                ? new CachingPasswordEncoder(new SimpleMeterRegistry(), delegatingPasswordEncoder, 1000, Duration.ofMinutes(5))
+                : delegatingPasswordEncoder);
+        daoAuthenticationProvider.setUserCache(new NdrewCodingUserCache(new SimpleMeterRegistry(), 1000,
+                Duration.ofMinutes(5)));
+        authenticationManager = new ProviderManager(daoAuthenticationProvider);
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, "ndrewcoding"));
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.ndrewcoding.springboot2.benchmark;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.wrapper.PageableResponse;
+
+/**
+ * Compares JSON with Smile for the payloads of {@code /animes} (a page of 20) and {@code /animes/all} (10k animes),
+ * encoding as the server does and decoding as {@code AnimeClient} does. The payload size of every combination is
+ * printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class WireFormatBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"page", "all"})
+    private String payload;
+
+    private Object value;
+    private byte[] bytes;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder objectMapperBuilder = "smile".equals(format) ? Jackson2ObjectMapperBuilder.smile()
+                : Jackson2ObjectMapperBuilder.json();
+        ObjectMapper objectMapper = objectMapperBuilder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        Instant updatedAt = Instant.now();
+        List<Anime> animes = new ArrayList<>(CATALOG_SIZE);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            animes.add(Anime.builder().id(id).name(String.format("Anime %08d", id)).version(0L).updatedAt(updatedAt)
+                    .build());
+        }
+
+        if ("page".equals(payload)) {
+            value = new PageableResponse<>(animes.subList(0, PAGE_SIZE), 0, PAGE_SIZE, CATALOG_SIZE, false, true,
+                    CATALOG_SIZE / PAGE_SIZE, PAGE_SIZE, null, null);
+            reader = objectMapper.readerFor(objectMapper.getTypeFactory()
+                    .constructParametricType(PageableResponse.class, Anime.class));
+        } else {
+            value = animes.toArray(new Anime[0]);
+            reader = objectMapper.readerFor(Anime[].class);
+        }
+        writer = objectMapper.writer();
+        bytes = writer.writeValueAsBytes(value);
+        System.out.printf("%n%s %s payload: %,d bytes%n", format, payload, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(bytes);
+    }
+}
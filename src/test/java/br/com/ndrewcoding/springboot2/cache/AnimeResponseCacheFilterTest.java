@@ -0,0 +1,174 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.accept.ParameterContentNegotiationStrategy;
+
+import br.com.ndrewcoding.springboot2.config.WireFormatNegotiator;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnimeResponseCacheFilterTest {
+    private static final String BODY = "{\"content\":[{\"id\":1,\"name\":\"Overlord\"}]}";
+
+    private AnimeResponseCache animeResponseCache;
+    private AnimeResponseCacheFilter animeResponseCacheFilter;
+    private AtomicInteger renders;
+    private FilterChain filterChain;
+
+    @BeforeEach
+    void setUp(){
+        AnimeService animeServiceMock = Mockito.mock(AnimeService.class);
+        BDDMockito.when(animeServiceMock.getCatalogVersion()).thenReturn("1-0");
+        animeResponseCache = new AnimeResponseCache(new SimpleMeterRegistry(), DataSize.ofMegabytes(1),
+                Duration.ofMinutes(1));
+        WireFormatNegotiator wireFormatNegotiator = new WireFormatNegotiator(new ContentNegotiationManager(
+                new ParameterContentNegotiationStrategy(Map.of("json", MediaType.APPLICATION_JSON, "smile",
+                        WireFormatNegotiator.APPLICATION_SMILE)), new HeaderContentNegotiationStrategy()));
+        animeResponseCacheFilter = new AnimeResponseCacheFilter(animeResponseCache, animeServiceMock,
+                wireFormatNegotiator);
+        renders = new AtomicInteger();
+        filterChain = (request, response) -> {
+            renders.incrementAndGet();
+            boolean smile = String.valueOf(((HttpServletRequest) request).getHeader(HttpHeaders.ACCEPT))
+                    .startsWith(WireFormatNegotiator.APPLICATION_SMILE_VALUE);
+            HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            httpServletResponse.setContentType(smile ? WireFormatNegotiator.APPLICATION_SMILE_VALUE
+                    : MediaType.APPLICATION_JSON_VALUE);
+            httpServletResponse.setHeader(HttpHeaders.ETAG, smile ? "\"1-0-smile\"" : "\"1-0\"");
+            response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    @DisplayName("doFilter serves the compressed bytes of the first response to later gzip clients")
+    void doFilter_ServesCompressedBytes_ToLaterGzipClients() throws Exception {
+        MockHttpServletResponse first = get("/animes", "page=0&size=20", "gzip, deflate");
+        MockHttpServletResponse second = get("/animes", "page=0&size=20", "gzip, deflate");
+
+        Assertions.assertThat(renders).hasValue(1);
+        for (MockHttpServletResponse response : new MockHttpServletResponse[] { first, second }) {
+            Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"1-0\"");
+            Assertions.assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+            Assertions.assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+            Assertions.assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    @DisplayName("doFilter keys cached responses by query string")
+    void doFilter_KeysCachedResponses_ByQueryString() throws Exception {
+        get("/animes", "page=0&size=20", "gzip");
+        get("/animes", "page=1&size=20", "gzip");
+
+        Assertions.assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("doFilter keys cached responses by the negotiated media type and varies them on Accept")
+    void doFilter_KeysCachedResponses_ByNegotiatedMediaType() throws Exception {
+        MockHttpServletResponse json = get("/animes", "page=0&size=20", "gzip", MediaType.APPLICATION_JSON_VALUE);
+        MockHttpServletResponse smile = get("/animes", "page=0&size=20", "gzip",
+                WireFormatNegotiator.APPLICATION_SMILE_VALUE);
+        MockHttpServletResponse cachedSmile = get("/animes", "page=0&size=20", "gzip",
+                WireFormatNegotiator.APPLICATION_SMILE_VALUE);
+
+        Assertions.assertThat(renders).hasValue(2);
+
+        Assertions.assertThat(json.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        Assertions.assertThat(json.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"1-0\"");
+
+        Assertions.assertThat(cachedSmile.getContentType()).isEqualTo(WireFormatNegotiator.APPLICATION_SMILE_VALUE);
+        Assertions.assertThat(cachedSmile.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"1-0-smile\"");
+
+        for (MockHttpServletResponse response : new MockHttpServletResponse[] { json, smile, cachedSmile }) {
+            Assertions.assertThat(response.getHeaders(HttpHeaders.VARY))
+                    .containsExactlyInAnyOrder(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+
+    @Test
+    @DisplayName("doFilter leaves clients that do not accept gzip to the controller")
+    void doFilter_LeavesClientsWithoutGzip_ToController() throws Exception {
+        MockHttpServletResponse response = get("/animes/all", null, null);
+        get("/animes/all", null, null);
+
+        Assertions.assertThat(renders).hasValue(2);
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        Assertions.assertThat(response.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    @DisplayName("acceptsGzip honors the quality of gzip and of the wildcard")
+    void acceptsGzip_HonorsQualityValues(){
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("br, *")).isTrue();
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("gzip;q=0")).isFalse();
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("gzip ; q=0.000, *")).isFalse();
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("x-gzip")).isFalse();
+        Assertions.assertThat(AnimeResponseCacheFilter.acceptsGzip("identity, *;q=0")).isFalse();
+    }
+
+    @Test
+    @DisplayName("doFilter renders again after an anime changes")
+    void doFilter_RendersAgain_AfterAnimeChanges() throws Exception {
+        get("/animes/all", null, "gzip");
+
+        animeResponseCache.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.CREATED, Set.of(2L),
+                Set.of("Overlord II")));
+        get("/animes/all", null, "gzip");
+
+        Assertions.assertThat(renders).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String path, String queryString, String acceptEncoding) throws Exception {
+        return get(path, queryString, acceptEncoding, null);
+    }
+
+    private MockHttpServletResponse get(String path, String queryString, String acceptEncoding, String accept)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setQueryString(queryString);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        animeResponseCacheFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.ndrewcoding.springboot2.cache;
+
+import java.time.Duration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.event.NdrewCodingUserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NdrewCodingUserCacheTest {
+    private NdrewCodingUserCache ndrewCodingUserCache;
+    private NdrewCodingUser user;
+
+    @BeforeEach
+    void setUp(){
+        ndrewCodingUserCache = new NdrewCodingUserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        user = NdrewCodingUser.builder().id(1L).name("Andrew Bunro").username("bunro").password("{noop}secret")
+                .authorities("ROLE_USER,ROLE_ADMIN").build();
+        ndrewCodingUserCache.putUserInCache(user);
+    }
+
+    @Test
+    @DisplayName("getUserFromCache returns the cached user until it changes")
+    void getUserFromCache_ReturnsCachedUser_UntilUserChanges(){
+        Assertions.assertThat(ndrewCodingUserCache.getUserFromCache("bunro")).isSameAs(user);
+
+        ndrewCodingUserCache.onUserChanged(new NdrewCodingUserChangedEvent(1L, "bunro"));
+
+        Assertions.assertThat(ndrewCodingUserCache.getUserFromCache("bunro")).isNull();
+    }
+
+    @Test
+    @DisplayName("onUserChanged evicts the entry cached under the old username when the username changes")
+    void onUserChanged_EvictsOldUsername_WhenUsernameChanges(){
+        ndrewCodingUserCache.onUserChanged(new NdrewCodingUserChangedEvent(1L, "bunro2"));
+
+        Assertions.assertThat(ndrewCodingUserCache.getUserFromCache("bunro")).isNull();
+    }
+
+    @Test
+    @DisplayName("putUserInCache skips users that are not database users")
+    void putUserInCache_SkipsUser_WhenUserIsNotDatabaseUser(){
+        ndrewCodingUserCache.putUserInCache(User.withUsername("andrew2").password("{noop}secret").roles("USER").build());
+
+        Assertions.assertThat(ndrewCodingUserCache.getUserFromCache("andrew2")).isNull();
+    }
+
+    @Test
+    @DisplayName("getAuthorities parses the authorities once per user and again after they change")
+    void getAuthorities_ReusesParsedAuthorities_UntilAuthoritiesChange(){
+        Assertions.assertThat(user.getAuthorities()).extracting(Object::toString)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+
+        Assertions.assertThat(user.getAuthorities()).isSameAs(user.getAuthorities());
+
+        user.setAuthorities("ROLE_USER");
+
+        Assertions.assertThat(user.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+    }
+}
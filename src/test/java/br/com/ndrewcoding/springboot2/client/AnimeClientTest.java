@@ -0,0 +1,67 @@
+package br.com.ndrewcoding.springboot2.client;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
+import org.springframework.test.web.client.response.MockRestResponseCreators;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+
+class AnimeClientTest {
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final Anime anime = Anime.builder().id(1L).name("Overlord").version(0L).updatedAt(Instant.now()).build();
+    private AnimeClient animeClient;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp(){
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        animeClient = new AnimeClient(new RestTemplateBuilder(customizer).rootUri("http://animes.test"),
+                AnimeClient.APPLICATION_SMILE);
+        server = customizer.getServer();
+    }
+
+    @Test
+    @DisplayName("listAll asks for smile and decodes the smile body when successful")
+    void listAll_AsksForSmileAndDecodesBody_WhenSuccessful() throws Exception {
+        server.expect(MockRestRequestMatchers.requestTo("/animes/all"))
+                .andExpect(MockRestRequestMatchers.header(HttpHeaders.ACCEPT, AnimeClient.APPLICATION_SMILE.toString()))
+                .andRespond(MockRestResponseCreators.withSuccess(smileMapper.writeValueAsBytes(List.of(anime)),
+                        AnimeClient.APPLICATION_SMILE));
+
+        Assertions.assertThat(animeClient.listAll()).containsExactly(anime);
+
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("save sends the request body as smile when successful")
+    void save_SendsRequestBodyAsSmile_WhenSuccessful() throws Exception {
+        AnimePostRequestBody animePostRequestBody = AnimePostRequestBody.builder().name("Overlord").build();
+        server.expect(MockRestRequestMatchers.requestTo("/animes/admin"))
+                .andExpect(MockRestRequestMatchers.method(HttpMethod.POST))
+                .andExpect(MockRestRequestMatchers.content().contentType(AnimeClient.APPLICATION_SMILE))
+                .andExpect(MockRestRequestMatchers.content()
+                        .bytes(smileMapper.writeValueAsBytes(animePostRequestBody)))
+                .andRespond(MockRestResponseCreators.withSuccess(smileMapper.writeValueAsBytes(anime),
+                        AnimeClient.APPLICATION_SMILE));
+
+        Assertions.assertThat(animeClient.save(animePostRequestBody)).isEqualTo(anime);
+
+        server.verify();
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.util.AnimeCreator;
+
+@DataJpaTest
+@Import(AnimeSchemaInitializer.class)
+class AnimeSchemaInitializerTest {
+    @Autowired
+    private AnimeSchemaInitializer animeSchemaInitializer;
+    @Autowired
+    private AnimeRepository animeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("seedIdSequence moves the id sequence past rows inserted with identity ids")
+    void seedIdSequence_MovesSequencePastExistingIds_WhenRowsPredateSequence(){
+        jdbcTemplate.update("insert into anime (id, name, version, updated_at) values (?, ?, 0, ?)", 1000L,
+                "Inserted Before The Sequence", Timestamp.from(Instant.now()));
+
+        animeSchemaInitializer.seedIdSequence();
+
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Assertions.assertThat(savedAnime.getId()).isGreaterThan(1000L);
+    }
+
+    @Test
+    @DisplayName("backfillVersionColumns fills and enforces version and updated_at on rows that predate them")
+    void backfillVersionColumns_FillsNullVersionAndUpdatedAt_WhenRowsPredateColumns(){
+        jdbcTemplate.execute("alter table anime alter column version set null");
+        jdbcTemplate.execute("alter table anime alter column updated_at set null");
+        jdbcTemplate.update("insert into anime (id, name) values (?, ?)", 1000L, "Inserted Before The Version");
+
+        animeSchemaInitializer.backfillVersionColumns();
+
+        Anime legacyAnime = animeRepository.findById(1000L).orElseThrow();
+
+        Assertions.assertThat(legacyAnime.getVersion()).isZero();
+
+        Assertions.assertThat(legacyAnime.getUpdatedAt()).isNotNull();
+
+        Assertions.assertThatThrownBy(() -> jdbcTemplate.update("insert into anime (id, name, version, updated_at)"
+                + " values (?, ?, null, null)", 1001L, "Inserted Without A Version"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
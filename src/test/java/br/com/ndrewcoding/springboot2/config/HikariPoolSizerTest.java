@@ -0,0 +1,36 @@
+package br.com.ndrewcoding.springboot2.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class HikariPoolSizerTest {
+
+    @Test
+    @DisplayName("poolSize uses twice the cores plus the spindles when the database has room")
+    void poolSize_UsesCores_WhenDatabaseHasRoom(){
+        Assertions.assertThat(new HikariPoolSizer(true, 4, 1, 151, 10, 1).poolSize()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("poolSize splits the database connections between the instances when they are the limit")
+    void poolSize_SplitsDatabaseConnections_WhenTheyAreTheLimit(){
+        Assertions.assertThat(new HikariPoolSizer(true, 16, 1, 100, 10, 6).poolSize()).isEqualTo(15);
+    }
+
+    @Test
+    @DisplayName("postProcessBeforeInitialization sizes a fixed pool only when auto sizing is enabled")
+    void postProcessBeforeInitialization_SizesFixedPool_OnlyWhenAutoSizingIsEnabled(){
+        HikariDataSource sized = new HikariDataSource();
+        HikariDataSource untouched = new HikariDataSource();
+
+        new HikariPoolSizer(true, 2, 1, 151, 10, 1).postProcessBeforeInitialization(sized, "dataSource");
+        new HikariPoolSizer(false, 2, 1, 151, 10, 1).postProcessBeforeInitialization(untouched, "dataSource");
+
+        Assertions.assertThat(sized.getMaximumPoolSize()).isEqualTo(5);
+        Assertions.assertThat(sized.getMinimumIdle()).isEqualTo(5);
+        Assertions.assertThat(untouched.getMaximumPoolSize()).isEqualTo(new HikariDataSource().getMaximumPoolSize());
+    }
+}
@@ -1,8 +1,16 @@
 package br.com.ndrewcoding.springboot2.controller;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,19 +21,41 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ndrewcoding.springboot2.cache.IdempotencyKeyCache;
+import br.com.ndrewcoding.springboot2.config.WireFormatNegotiator;
 import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.exception.BadRequestException;
 import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
 import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkResponse;
+import br.com.ndrewcoding.springboot2.service.AnimeBulkService;
+import br.com.ndrewcoding.springboot2.service.AnimeSaveResult;
 import br.com.ndrewcoding.springboot2.service.AnimeService;
 import br.com.ndrewcoding.springboot2.util.AnimeCreator;
 import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
 import br.com.ndrewcoding.springboot2.util.AnimePutRequestBodyCreator;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 class AnimeControllerTest {
@@ -33,24 +63,69 @@ class AnimeControllerTest {
     private AnimeController animeController;
     @Mock
     private AnimeService animeServiceMock;
+    @Mock
+    private AnimeBulkService animeBulkServiceMock;
+    @Spy
+    private IdempotencyKeyCache idempotencyKeyCache = new IdempotencyKeyCache(new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+    @Spy
+    private WireFormatNegotiator wireFormatNegotiator = new WireFormatNegotiator(new ContentNegotiationManager());
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @BeforeEach
     void setUp(){
         PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
+        BDDMockito.when(animeServiceMock.getCatalogVersion())
+                .thenReturn("1-5");
+
         BDDMockito.when(animeServiceMock.listAll(ArgumentMatchers.any()))
                 .thenReturn(animePage);
 
+        BDDMockito.when(animeServiceMock.listAllSlice(ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(List.of(AnimeCreator.createValidAnime())));
+
+        BDDMockito.when(animeServiceMock.listAllByCursor(ArgumentMatchers.any(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyString(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyBoolean()))
+                .thenReturn(CursorPage.<Anime>builder().content(List.of(AnimeCreator.createValidAnime())).size(20).build());
+
         BDDMockito.when(animeServiceMock.listAllNonPageable())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.doAnswer(invocation -> {
+            invocation.<Consumer<Anime>>getArgument(0).accept(AnimeCreator.createValidAnime());
+            return null;
+        }).when(animeServiceMock).streamAll(ArgumentMatchers.any());
+
         BDDMockito.when(animeServiceMock.findAnimeByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
                 .thenReturn(AnimeCreator.createValidAnime());
 
         BDDMockito.when(animeServiceMock.findByName(ArgumentMatchers.anyString()))
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.when(animeServiceMock.search(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(animePage);
+
         BDDMockito.when(animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
-                .thenReturn(AnimeCreator.createValidAnime());
+                .thenReturn(new AnimeSaveResult(AnimeCreator.createValidAnime(), true));
+
+        BDDMockito.when(animeBulkServiceMock.saveAll(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Iterator<AnimePostRequestBody> animePostRequestBodies = invocation.getArgument(0);
+            long created = 0;
+            while (animePostRequestBodies.hasNext()) {
+                animePostRequestBodies.next();
+                created++;
+            }
+            return AnimeBulkInsertResponse.builder().created(created)
+                    .items(List.of(AnimeBulkItemResult.builder().status(AnimeBulkItemResult.Status.CREATED).build()))
+                    .build();
+        });
+
+        BDDMockito.when(animeBulkServiceMock.replaceAll(ArgumentMatchers.anyList()))
+                .thenReturn(AnimeBulkResponse.builder().affectedIds(List.of(1L)).missingIds(List.of()).build());
+
+        BDDMockito.when(animeBulkServiceMock.deleteAll(ArgumentMatchers.anyCollection()))
+                .thenReturn(AnimeBulkResponse.builder().affectedIds(List.of(1L)).missingIds(List.of(2L)).build());
 
         BDDMockito.doNothing().when(animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class));
 
@@ -61,7 +136,7 @@ class AnimeControllerTest {
     void list_ReturnsListOfAnimesInsidePageObject_WhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
 
-        Page<Anime> animePage = animeController.list(null).getBody();
+        Page<Anime> animePage = animeController.list(null, getRequest()).getBody();
 
         Assertions.assertThat(animePage).isNotNull();
 
@@ -72,12 +147,44 @@ class AnimeControllerTest {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listSlice returns list of anime inside slice object when successful")
+    void listSlice_ReturnsListOfAnimesInsideSliceObject_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        Slice<Anime> animeSlice = animeController.listSlice(null).getBody();
+
+        Assertions.assertThat(animeSlice).isNotNull();
+
+        Assertions.assertThat(animeSlice.toList())
+                .isNotEmpty()
+                .hasSize(1);
+
+        Assertions.assertThat(animeSlice.toList().get(0).getName()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("listByCursor returns list of anime inside cursor page when successful")
+    void listByCursor_ReturnsListOfAnimesInsideCursorPage_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        CursorPage<Anime> animePage = animeController.listByCursor(null, "id", "ASC", 20, true).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.getContent())
+                .isNotEmpty()
+                .hasSize(1);
+
+        Assertions.assertThat(animePage.getContent().get(0).getName()).isEqualTo(expectedName);
+    }
+
     @Test
     @DisplayName("listAll returns list of anime when successful")
     void listAll_ReturnsListOfAnimes_WhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
 
-        List<Anime> animes = animeController.listAll().getBody();
+        List<Anime> animes = animeController.listAll(getRequest()).getBody();
 
         Assertions.assertThat(animes)
                 .isNotNull()
@@ -87,18 +194,79 @@ class AnimeControllerTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("streamAll writes one json line per anime when successful")
+    void streamAll_WritesOneJsonLinePerAnime_WhenSuccessful() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        animeController.streamAll().getBody().writeTo(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        Assertions.assertThat(lines).hasSize(1);
+
+        Assertions.assertThat(objectMapper.readValue(lines[0], Anime.class)).isEqualTo(AnimeCreator.createValidAnime());
+    }
+
     @Test
     @DisplayName("findById returns anime when successful")
     void findById_ReturnsAnime_WhenSuccessful(){
         Long expectedId = AnimeCreator.createValidAnime().getId();
 
-        Anime anime = animeController.findAnimeById(1).getBody();
+        Anime anime = animeController.findAnimeById(1, getRequest()).getBody();
 
         Assertions.assertThat(anime).isNotNull();
 
         Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("findById returns 304 without a body when the ETag still matches")
+    void findById_ReturnsNotModified_WhenETagMatches(){
+        Anime validAnime = AnimeCreator.createValidAnime().toBuilder().version(3L).updatedAt(Instant.now()).build();
+        BDDMockito.when(animeServiceMock.findAnimeByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
+                .thenReturn(validAnime);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-3\"");
+
+        ResponseEntity<Anime> entity = animeController.findAnimeById(1, new ServletWebRequest(request,
+                new MockHttpServletResponse()));
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        Assertions.assertThat(entity.getBody()).isNull();
+    }
+
+    @Test
+    @DisplayName("list returns 304 without querying animes when the catalog ETag still matches")
+    void list_ReturnsNotModified_WhenCatalogETagMatches(){
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-5\"");
+
+        ResponseEntity<Page<Anime>> entity = animeController.list(null, new ServletWebRequest(request,
+                new MockHttpServletResponse()));
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        BDDMockito.verify(animeServiceMock, Mockito.never()).listAll(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("list tags a Smile response apart from the JSON one of the same catalog")
+    void list_ReturnsSmileETag_WhenSmileIsAccepted(){
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.addHeader(HttpHeaders.ACCEPT, WireFormatNegotiator.APPLICATION_SMILE_VALUE);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-5\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Page<Anime>> entity = animeController.list(null, new ServletWebRequest(request, response));
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1-5-smile\"");
+    }
+
     @Test
     @DisplayName("findByName returns a list of anime when successful")
     void findByName_ReturnsListOfAnime_WhenSuccessful(){
@@ -128,14 +296,108 @@ class AnimeControllerTest {
 
     }
 
+    @Test
+    @DisplayName("search returns list of anime inside page object when successful")
+    void search_ReturnsListOfAnimesInsidePageObject_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        Page<Anime> animePage = animeController.search("hajime", null).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.toList())
+                .isNotEmpty()
+                .hasSize(1);
+
+        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+    }
+
     @Test
     @DisplayName("save returns anime when successful")
     void save_ReturnsAnime_WhenSuccessful(){
 
-        Anime anime = animeController.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()).getBody();
+        ResponseEntity<Anime> responseEntity = animeController
+                .save(AnimePostRequestBodyCreator.createAnimePostRequestBody(), null);
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        Assertions.assertThat(responseEntity.getBody()).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
+
+    }
+
+    @Test
+    @DisplayName("save returns 200 with the stored anime when the name already exists")
+    void save_Returns200WithStoredAnime_WhenNameAlreadyExists(){
+        BDDMockito.when(animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
+                .thenReturn(new AnimeSaveResult(AnimeCreator.createValidAnime(), false));
+
+        ResponseEntity<Anime> responseEntity = animeController
+                .save(AnimePostRequestBodyCreator.createAnimePostRequestBody(), null);
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(AnimeCreator.createValidAnime());
+    }
+
+    @Test
+    @DisplayName("save replays the first response when the Idempotency-Key is reused")
+    void save_ReplaysFirstResponse_WhenIdempotencyKeyIsReused(){
+        AnimePostRequestBody animePostRequestBody = AnimePostRequestBodyCreator.createAnimePostRequestBody();
+
+        Anime first = animeController.save(animePostRequestBody, "key-1").getBody();
+        Anime retry = animeController.save(animePostRequestBody, "key-1").getBody();
+
+        Assertions.assertThat(retry).isEqualTo(first);
+
+        BDDMockito.verify(animeServiceMock).save(ArgumentMatchers.any(AnimePostRequestBody.class));
+    }
+
+    @Test
+    @DisplayName("save throws BadRequestException when the Idempotency-Key is reused for a different anime")
+    void save_ThrowsBadRequestException_WhenIdempotencyKeyIsReusedForDifferentAnime(){
+        animeController.save(AnimePostRequestBodyCreator.createAnimePostRequestBody(), "key-1");
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeController.save(AnimePostRequestBody.builder().name("Akira").build(), "key-1"));
+    }
+
+    @Test
+    @DisplayName("save runs again for a reused Idempotency-Key when the first save failed")
+    void save_RunsAgain_WhenFirstSaveWithIdempotencyKeyFailed(){
+        AnimePostRequestBody animePostRequestBody = AnimePostRequestBodyCreator.createAnimePostRequestBody();
+        BDDMockito.when(animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
+                .thenThrow(new CannotCreateTransactionException("database is down"))
+                .thenReturn(new AnimeSaveResult(AnimeCreator.createValidAnime(), true));
+
+        Assertions.assertThatExceptionOfType(CannotCreateTransactionException.class)
+                .isThrownBy(() -> animeController.save(animePostRequestBody, "key-1"));
+
+        Assertions.assertThat(animeController.save(animePostRequestBody, "key-1").getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+    }
+
+    @Test
+    @DisplayName("saveAll returns the bulk insert outcome when successful")
+    void saveAll_ReturnsBulkInsertResponse_WhenSuccessful(){
+
+        AnimeBulkInsertResponse response = animeController
+                .saveAll(List.of(AnimePostRequestBodyCreator.createAnimePostRequestBody())).getBody();
+
+        Assertions.assertThat(response).isNotNull();
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("saveAllFromStream reads every newline-delimited anime when successful")
+    void saveAllFromStream_ReadsEveryAnime_WhenSuccessful() throws IOException {
+        byte[] body = "{\"name\":\"Akira\"}\n{\"name\":\"Bleach\"}\n".getBytes(StandardCharsets.UTF_8);
+
+        AnimeBulkInsertResponse response = animeController.saveAllFromStream(new ByteArrayInputStream(body)).getBody();
 
-        Assertions.assertThat(anime).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
+        Assertions.assertThat(response).isNotNull();
 
+        Assertions.assertThat(response.getCreated()).isEqualTo(2);
     }
 
     @Test
@@ -165,4 +427,33 @@ class AnimeControllerTest {
 
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("replaceAll returns affected and missing ids when successful")
+    void replaceAll_ReturnsAffectedAndMissingIds_WhenSuccessful(){
+
+        AnimeBulkResponse response = animeController
+                .replaceAll(List.of(AnimePutRequestBodyCreator.createAnimePutRequestBody())).getBody();
+
+        Assertions.assertThat(response).isNotNull();
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("deleteAll returns affected and missing ids when successful")
+    void deleteAll_ReturnsAffectedAndMissingIds_WhenSuccessful(){
+
+        AnimeBulkResponse response = animeController.deleteAll(List.of(1L, 2L)).getBody();
+
+        Assertions.assertThat(response).isNotNull();
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(1L);
+
+        Assertions.assertThat(response.getMissingIds()).containsExactly(2L);
+    }
+
+    private static ServletWebRequest getRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/animes"), new MockHttpServletResponse());
+    }
+}
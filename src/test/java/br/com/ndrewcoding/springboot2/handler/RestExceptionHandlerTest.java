@@ -0,0 +1,106 @@
+package br.com.ndrewcoding.springboot2.handler;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.exception.AnimeQueueFullException;
+import br.com.ndrewcoding.springboot2.exception.ExceptionDetails;
+
+class RestExceptionHandlerTest {
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+
+    @Test
+    @DisplayName("handleDatabaseUnavailable returns 503 with Retry-After when the pool has no connection to give")
+    void handleDatabaseUnavailable_Returns503WithRetryAfter_WhenPoolIsExhausted(){
+        CannotCreateTransactionException exception = new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("ndrewcoding - Connection is not available, request timed out after 2000ms."));
+
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler.handleDatabaseUnavailable(exception);
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Assertions.assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("handleExecutorSaturated returns 503 with Retry-After when the async executor rejects the call")
+    void handleExecutorSaturated_Returns503WithRetryAfter_WhenExecutorRejects(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler
+                .handleExecutorSaturated(new RejectedExecutionException("Queue capacity is exceeded"));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Assertions.assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("handleDataIntegrityViolation returns 409 when the anime breaks the unique name")
+    void handleDataIntegrityViolation_Returns409_WhenNameIsTaken(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler.handleDataIntegrityViolation(
+                new DataIntegrityViolationException("could not execute statement; constraint [uk_anime_name]"));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    @DisplayName("handleDataIntegrityViolation returns 409 when the driver reports the unique name in its message")
+    void handleDataIntegrityViolation_Returns409_WhenCauseNamesUniqueName(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler.handleDataIntegrityViolation(
+                new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                        "could not execute statement",
+                        new SQLIntegrityConstraintViolationException("Duplicate entry 'Ippo' for key 'anime.UK_ANIME_NAME'"),
+                        null)));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    @DisplayName("handleDataIntegrityViolation returns 400 when the anime breaks another constraint")
+    void handleDataIntegrityViolation_Returns400_WhenOtherConstraintIsViolated(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler.handleDataIntegrityViolation(
+                new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                        "could not execute statement",
+                        new SQLIntegrityConstraintViolationException("Data too long for column 'name' at row 1"),
+                        null)));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getDetails()).doesNotContain("unique");
+    }
+
+    @Test
+    @DisplayName("handleOptimisticLockingFailure returns 409 when the anime changed during the write")
+    void handleOptimisticLockingFailure_Returns409_WhenAnimeChangedConcurrently(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler.handleOptimisticLockingFailure(
+                new ObjectOptimisticLockingFailureException(Anime.class, 1L));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    @DisplayName("handleAnimeQueueFull returns 429 with Retry-After when the write-behind queue is full")
+    void handleAnimeQueueFull_Returns429WithRetryAfter_WhenQueueIsFull(){
+        ResponseEntity<ExceptionDetails> responseEntity = restExceptionHandler
+                .handleAnimeQueueFull(new AnimeQueueFullException());
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        Assertions.assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+}
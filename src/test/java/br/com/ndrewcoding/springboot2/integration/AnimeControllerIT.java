@@ -1,6 +1,13 @@
 package br.com.ndrewcoding.springboot2.integration;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -17,19 +24,30 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 
+import br.com.ndrewcoding.springboot2.client.AnimeClient;
+import br.com.ndrewcoding.springboot2.controller.AnimeController;
 import br.com.ndrewcoding.springboot2.domain.Anime;
 import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
 import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
 import br.com.ndrewcoding.springboot2.repository.NdrewCodingUserRepository;
 import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkResponse;
+import br.com.ndrewcoding.springboot2.responses.TokenResponse;
 import br.com.ndrewcoding.springboot2.util.AnimeCreator;
 import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
 import br.com.ndrewcoding.springboot2.wrapper.PageableResponse;
+import br.com.ndrewcoding.springboot2.wrapper.SliceResponse;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureTestDatabase
@@ -92,6 +110,68 @@ class AnimeControllerIT {
 		Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
 	}
 
+	@Test
+	@DisplayName("listSlice returns list of anime inside slice object when successful")
+	void listSlice_ReturnsListOfAnimesInsideSliceObject_WhenSuccessful() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		SliceResponse<Anime> animeSlice = testRestTemplateRoleUser.exchange("/animes/slice", HttpMethod.GET, null,
+				new ParameterizedTypeReference<SliceResponse<Anime>>() {
+				}).getBody();
+
+		Assertions.assertThat(animeSlice).isNotNull();
+
+		Assertions.assertThat(animeSlice.toList()).hasSize(1);
+
+		Assertions.assertThat(animeSlice.toList().get(0).getName()).isEqualTo(savedAnime.getName());
+
+		Assertions.assertThat(animeSlice.hasNext()).isFalse();
+	}
+
+	@Test
+	@DisplayName("listByCursor walks forward and back through animes when successful")
+	void listByCursor_WalksForwardAndBackThroughAnimes_WhenSuccessful() {
+		animeRepository.save(Anime.builder().name("Claymore").build());
+		animeRepository.save(Anime.builder().name("Akira").build());
+		animeRepository.save(Anime.builder().name("Bleach").build());
+
+		ndrewCodingUserRepository.save(USER);
+
+		ParameterizedTypeReference<CursorPage<Anime>> cursorPageType = new ParameterizedTypeReference<>() {
+		};
+
+		CursorPage<Anime> firstPage = testRestTemplateRoleUser
+				.exchange("/animes/seek?sort=name&size=2", HttpMethod.GET, null, cursorPageType).getBody();
+
+		Assertions.assertThat(firstPage).isNotNull();
+
+		Assertions.assertThat(firstPage.getContent()).extracting(Anime::getName).containsExactly("Akira", "Bleach");
+
+		Assertions.assertThat(firstPage.getTotalElements()).isEqualTo(3);
+
+		CursorPage<Anime> secondPage = testRestTemplateRoleUser.exchange("/animes/seek?count=false&cursor={cursor}",
+				HttpMethod.GET, null, cursorPageType, firstPage.getNextCursor()).getBody();
+
+		Assertions.assertThat(secondPage).isNotNull();
+
+		Assertions.assertThat(secondPage.getContent()).extracting(Anime::getName).containsExactly("Claymore");
+
+		Assertions.assertThat(secondPage.getNextCursor()).isNull();
+
+		Assertions.assertThat(secondPage.getTotalElements()).isNull();
+
+		CursorPage<Anime> previousPage = testRestTemplateRoleUser.exchange("/animes/seek?cursor={cursor}",
+				HttpMethod.GET, null, cursorPageType, secondPage.getPrevCursor()).getBody();
+
+		Assertions.assertThat(previousPage).isNotNull();
+
+		Assertions.assertThat(previousPage.getContent()).extracting(Anime::getName).containsExactly("Akira", "Bleach");
+
+		Assertions.assertThat(previousPage.getPrevCursor()).isNull();
+	}
+
 	@Test
 	@DisplayName("listAll returns list of anime when successful")
 	void listAll_ReturnsListOfAnimes_WhenSuccessful() {
@@ -110,6 +190,27 @@ class AnimeControllerIT {
 		Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
 	}
 
+	@Test
+	@DisplayName("listAll streams one json line per anime when ndjson is requested")
+	void listAll_StreamsOneJsonLinePerAnime_WhenNdjsonIsRequested() {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+		animeRepository.save(Anime.builder().name("Overlord").build());
+
+		ndrewCodingUserRepository.save(USER);
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(List.of(AnimeController.APPLICATION_NDJSON));
+
+		ResponseEntity<String> response = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(AnimeController.APPLICATION_NDJSON);
+
+		Assertions.assertThat(response.getBody()).isNotNull().hasLineCount(2);
+	}
+
 	@Test
 	@DisplayName("findById returns anime when successful")
 	void findById_ReturnsAnime_WhenSuccessful() {
@@ -126,6 +227,51 @@ class AnimeControllerIT {
 		Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
 	}
 
+	@Test
+	@DisplayName("prometheus exposes request histograms, hot path timers and jdbc metrics after a request")
+	void prometheus_ExposesRequestHistogramsHotPathTimersAndJdbcMetrics_AfterRequest() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		testRestTemplateRoleUser.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+		String scrape = testRestTemplateRoleUser.getForObject("/actuator/prometheus", String.class);
+
+		Assertions.assertThat(scrape).isNotNull().contains("uri=\"/animes/{id}\",le=\"0.01\"")
+				.contains("method=\"findAnimeByIdOrThrowBadRequestException\"")
+				.contains("repository=\"AnimeRepository\"")
+				.contains("mechanism=\"password\",outcome=\"success\"")
+				.contains("ndrewcoding_jdbc_queries_seconds_count").contains("table=\"anime\"")
+				.contains("ndrewcoding_jdbc_statements_per_request_count");
+	}
+
+	@Test
+	@DisplayName("prometheus attributes the statements of async and streamed responses to their request")
+	void prometheus_AttributesJdbcStatementsToAsyncAndStreamedRequests() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		testRestTemplateRoleUser.getForObject("/animes/async/{id}", Anime.class, savedAnime.getId());
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(List.of(AnimeController.APPLICATION_NDJSON));
+		testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		// the statistics are recorded when the async request completes, which may trail the response on the client
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		String scrape = testRestTemplateRoleUser.getForObject("/actuator/prometheus", String.class);
+		while ((statementsPerRequestSum(scrape, "/animes/async/{id}") == 0
+				|| statementsPerRequestSum(scrape, "/animes/all") == 0) && System.nanoTime() < deadline) {
+			scrape = testRestTemplateRoleUser.getForObject("/actuator/prometheus", String.class);
+		}
+
+		Assertions.assertThat(statementsPerRequestSum(scrape, "/animes/async/{id}")).isPositive();
+
+		Assertions.assertThat(statementsPerRequestSum(scrape, "/animes/all")).isPositive();
+	}
+
 	@Test
 	@DisplayName("findByName returns a list of anime when successful")
 	void findByName_ReturnsListOfAnime_WhenSuccessful() {
@@ -159,6 +305,26 @@ class AnimeControllerIT {
 
 	}
 
+	@Test
+	@DisplayName("search finds a saved anime by name prefix when successful")
+	void search_FindsSavedAnimeByNamePrefix_WhenSuccessful() {
+		AnimePostRequestBody animePostRequestBody = AnimePostRequestBodyCreator.createAnimePostRequestBody();
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		testRestTemplateRoleAdmin.postForEntity("/animes/admin", animePostRequestBody, Anime.class);
+
+		PageableResponse<Anime> animePage = testRestTemplateRoleAdmin.exchange("/animes/search?q=Hajime",
+				HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+				}).getBody();
+
+		Assertions.assertThat(animePage).isNotNull();
+
+		Assertions.assertThat(animePage.toList()).hasSize(1);
+
+		Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(animePostRequestBody.getName());
+	}
+
 	@Test
 	@DisplayName("save returns anime when successful")
 	void save_ReturnsAnime_WhenSuccessful() {
@@ -178,6 +344,103 @@ class AnimeControllerIT {
 		Assertions.assertThat(animeResponseEntity.getBody().getId()).isNotNull();
 	}
 
+	@Test
+	@DisplayName("saveAll inserts the valid animes and reports the invalid ones when successful")
+	void saveAll_InsertsValidAnimesAndReportsInvalidOnes_WhenSuccessful() {
+		List<AnimePostRequestBody> animePostRequestBodies = List.of(
+				AnimePostRequestBody.builder().name("Akira").build(), AnimePostRequestBody.builder().name("").build(),
+				AnimePostRequestBody.builder().name("Bleach").build());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<AnimeBulkInsertResponse> responseEntity = testRestTemplateRoleAdmin
+				.postForEntity("/animes/admin/bulk", animePostRequestBodies, AnimeBulkInsertResponse.class);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		AnimeBulkInsertResponse response = responseEntity.getBody();
+
+		Assertions.assertThat(response).isNotNull();
+
+		Assertions.assertThat(response.getCreated()).isEqualTo(2);
+
+		Assertions.assertThat(response.getRejected()).isEqualTo(1);
+
+		Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+				AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.INVALID,
+				AnimeBulkItemResult.Status.CREATED);
+
+		Assertions.assertThat(animeRepository.findAll()).extracting(Anime::getName)
+				.containsExactlyInAnyOrder("Akira", "Bleach");
+	}
+
+	@Test
+	@DisplayName("saveAllFromStream reports a malformed line as invalid and keeps inserting the following ones")
+	void saveAllFromStream_ReportsMalformedLineAsInvalid_AndKeepsInserting() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(AnimeController.APPLICATION_NDJSON);
+		String body = "{\"name\":\"Akira\"}\n{\"name\": \n{\"name\":\"Bleach\"}\n";
+
+		ResponseEntity<AnimeBulkInsertResponse> responseEntity = testRestTemplateRoleAdmin.postForEntity(
+				"/animes/admin/bulk", new HttpEntity<>(body, headers), AnimeBulkInsertResponse.class);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		AnimeBulkInsertResponse response = responseEntity.getBody();
+
+		Assertions.assertThat(response).isNotNull();
+
+		Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+				AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.INVALID,
+				AnimeBulkItemResult.Status.CREATED);
+
+		Assertions.assertThat(response.getItems().get(1).getMessage()).startsWith("Line 2 is not valid");
+
+		Assertions.assertThat(animeRepository.findAll()).extracting(Anime::getName)
+				.containsExactlyInAnyOrder("Akira", "Bleach");
+	}
+
+	@Test
+	@DisplayName("save returns the stored anime when the name already exists")
+	void save_ReturnsStoredAnime_WhenNameAlreadyExists() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<Anime> animeResponseEntity = testRestTemplateRoleAdmin.postForEntity("/animes/admin",
+				AnimePostRequestBodyCreator.createAnimePostRequestBody(), Anime.class);
+
+		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(animeResponseEntity.getBody()).isNotNull();
+
+		Assertions.assertThat(animeResponseEntity.getBody().getId()).isEqualTo(savedAnime.getId());
+
+		Assertions.assertThat(animeRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("save replays the first response when the Idempotency-Key is reused")
+	void save_ReplaysFirstResponse_WhenIdempotencyKeyIsReused() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Idempotency-Key", "ingest-42");
+		HttpEntity<AnimePostRequestBody> request = new HttpEntity<>(
+				AnimePostRequestBodyCreator.createAnimePostRequestBody(), headers);
+
+		Anime first = testRestTemplateRoleAdmin.postForObject("/animes/admin", request, Anime.class);
+		Anime retry = testRestTemplateRoleAdmin.postForObject("/animes/admin", request, Anime.class);
+
+		Assertions.assertThat(first).isNotNull();
+
+		Assertions.assertThat(retry).isEqualTo(first);
+
+		Assertions.assertThat(animeRepository.count()).isEqualTo(1);
+	}
+
 	@Test
 	@DisplayName("save returns 403 when user is not admin")
 	void save_Returns_403_WhenUserIsNotAdmin() {
@@ -214,6 +477,221 @@ class AnimeControllerIT {
 		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
 	}
 
+	@Test
+	@DisplayName("replace returns 409 when the new name belongs to another anime")
+	void replace_Returns409_WhenNameBelongsToAnotherAnime() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+		Anime otherAnime = animeRepository.save(Anime.builder().name("Overlord").build());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		savedAnime.setName(otherAnime.getName());
+
+		ResponseEntity<String> animeResponseEntity = testRestTemplateRoleAdmin.exchange("/animes/admin",
+				HttpMethod.PUT, new HttpEntity<>(savedAnime), String.class);
+
+		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+		Assertions.assertThat(animeRepository.findByName(AnimeCreator.createAnimeToBeSaved().getName())).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("findById returns 304 for a matching ETag and 200 once the anime changes")
+	void findById_HonorsIfNoneMatch_UntilAnimeChanges() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<Anime> firstResponse = testRestTemplateRoleAdmin.getForEntity("/animes/{id}", Anime.class,
+				savedAnime.getId());
+		String eTag = firstResponse.getHeaders().getETag();
+
+		Assertions.assertThat(eTag).isNotNull();
+
+		Assertions.assertThat(firstResponse.getHeaders().getLastModified()).isPositive();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+
+		ResponseEntity<Anime> notModifiedResponse = testRestTemplateRoleAdmin.exchange("/animes/{id}",
+				HttpMethod.GET, new HttpEntity<>(headers), Anime.class, savedAnime.getId());
+
+		Assertions.assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		Assertions.assertThat(notModifiedResponse.getBody()).isNull();
+
+		savedAnime.setName("Overlord");
+		testRestTemplateRoleAdmin.put("/animes/admin", savedAnime);
+
+		ResponseEntity<Anime> modifiedResponse = testRestTemplateRoleAdmin.exchange("/animes/{id}",
+				HttpMethod.GET, new HttpEntity<>(headers), Anime.class, savedAnime.getId());
+
+		Assertions.assertThat(modifiedResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(modifiedResponse.getHeaders().getETag()).isNotEqualTo(eTag);
+	}
+
+	@Test
+	@DisplayName("list returns 304 for a matching catalog ETag and 200 once an anime is added")
+	void list_HonorsIfNoneMatch_UntilCatalogChanges() {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		String eTag = testRestTemplateRoleAdmin.getForEntity("/animes", String.class).getHeaders().getETag();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+
+		ResponseEntity<String> notModifiedResponse = testRestTemplateRoleAdmin.exchange("/animes", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		testRestTemplateRoleAdmin.postForEntity("/animes/admin", AnimePostRequestBody.builder().name("Akira").build(),
+				Anime.class);
+
+		ResponseEntity<String> modifiedResponse = testRestTemplateRoleAdmin.exchange("/animes", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(modifiedResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	@DisplayName("listAll serves gzip to clients that accept it and reflects animes added afterwards")
+	void listAll_ServesGzip_AndReflectsAddedAnimes() throws IOException {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+		headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+		ResponseEntity<byte[]> firstResponse = testRestTemplateRoleAdmin.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(headers), byte[].class);
+		ResponseEntity<byte[]> cachedResponse = testRestTemplateRoleAdmin.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(headers), byte[].class);
+
+		Assertions.assertThat(cachedResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+
+		Assertions.assertThat(gunzip(cachedResponse.getBody())).isEqualTo(gunzip(firstResponse.getBody()))
+				.contains(AnimeCreator.createAnimeToBeSaved().getName());
+
+		HttpHeaders conditionalHeaders = new HttpHeaders();
+		conditionalHeaders.setIfNoneMatch(cachedResponse.getHeaders().getETag());
+
+		Assertions.assertThat(testRestTemplateRoleAdmin.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(conditionalHeaders), String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		testRestTemplateRoleAdmin.postForEntity("/animes/admin", AnimePostRequestBody.builder().name("Akira").build(),
+				Anime.class);
+
+		ResponseEntity<byte[]> modifiedResponse = testRestTemplateRoleAdmin.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(headers), byte[].class);
+
+		Assertions.assertThat(gunzip(modifiedResponse.getBody())).contains("Akira");
+	}
+
+	@Test
+	@DisplayName("listAll answers in smile when format=smile is requested")
+	void listAll_AnswersInSmile_WhenSmileIsRequested() {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		ResponseEntity<byte[]> responseEntity = testRestTemplateRoleUser.getForEntity("/animes/all?format=smile",
+				byte[].class);
+
+		Assertions.assertThat(responseEntity.getHeaders().getContentType()).isNotNull()
+				.matches(contentType -> contentType.isCompatibleWith(AnimeClient.APPLICATION_SMILE));
+
+		Assertions.assertThat(responseEntity.getBody()).startsWith((byte) ':', (byte) ')', (byte) '\n');
+	}
+
+	@Test
+	@DisplayName("listAll tags smile and json apart and varies on Accept, cached or not")
+	void listAll_TagsSmileApartFromJson_AndVariesOnAccept() {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		HttpHeaders jsonHeaders = new HttpHeaders();
+		jsonHeaders.setAccept(List.of(MediaType.APPLICATION_JSON));
+		jsonHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+		HttpHeaders smileHeaders = new HttpHeaders();
+		smileHeaders.setAccept(List.of(AnimeClient.APPLICATION_SMILE));
+		smileHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+		ResponseEntity<byte[]> jsonResponse = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(jsonHeaders), byte[].class);
+		ResponseEntity<byte[]> smileResponse = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(smileHeaders), byte[].class);
+		ResponseEntity<byte[]> cachedSmileResponse = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+				new HttpEntity<>(smileHeaders), byte[].class);
+
+		Assertions.assertThat(smileResponse.getHeaders().getETag()).isNotNull()
+				.isNotEqualTo(jsonResponse.getHeaders().getETag())
+				.isEqualTo(cachedSmileResponse.getHeaders().getETag());
+
+		Assertions.assertThat(cachedSmileResponse.getHeaders().getContentType()).isNotNull()
+				.matches(contentType -> contentType.isCompatibleWith(AnimeClient.APPLICATION_SMILE));
+
+		for (ResponseEntity<byte[]> response : List.of(jsonResponse, smileResponse, cachedSmileResponse)) {
+			Assertions.assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+		}
+
+		Assertions.assertThat(testRestTemplateRoleUser.getForEntity("/animes/1", String.class).getHeaders()
+				.getVary()).contains(HttpHeaders.ACCEPT);
+	}
+
+	@Test
+	@DisplayName("AnimeClient saves, finds and lists animes in smile when successful")
+	void animeClient_SavesFindsAndListsAnimesInSmile_WhenSuccessful() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		AnimeClient animeClient = new AnimeClient(new RestTemplateBuilder()
+				.rootUri(testRestTemplateRoleAdmin.getRootUri()).basicAuthentication("andrew", "ndrewcoding"),
+				AnimeClient.APPLICATION_SMILE);
+
+		Anime savedAnime = animeClient.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+		Assertions.assertThat(savedAnime.getId()).isNotNull();
+
+		Assertions.assertThat(animeClient.findById(savedAnime.getId()).getName()).isEqualTo(savedAnime.getName());
+
+		Assertions.assertThat(animeClient.findByName(savedAnime.getName())).extracting(Anime::getId)
+				.containsExactly(savedAnime.getId());
+
+		Assertions.assertThat(animeClient.listAll()).extracting(Anime::getName).containsExactly(savedAnime.getName());
+
+		PageableResponse<Anime> animePage = animeClient.list(0, 20);
+
+		Assertions.assertThat(animePage.getTotalElements()).isEqualTo(1);
+
+		Assertions.assertThat(animePage.getContent()).extracting(Anime::getId).containsExactly(savedAnime.getId());
+	}
+
+	@Test
+	@DisplayName("findById returns the replaced anime after a cached read when successful")
+	void findById_ReturnsReplacedAnime_AfterCachedRead() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		testRestTemplateRoleAdmin.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+		savedAnime.setName("new name");
+
+		testRestTemplateRoleAdmin.exchange("/animes/admin", HttpMethod.PUT, new HttpEntity<>(savedAnime), Void.class);
+
+		Anime anime = testRestTemplateRoleAdmin.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+		Assertions.assertThat(anime).isNotNull();
+
+		Assertions.assertThat(anime.getName()).isEqualTo("new name");
+	}
+
 	@Test
 	@DisplayName("replace returns 403 when user is not admin")
 	void replace_Returns_403_WhenUserIsNotAdmin() {
@@ -261,4 +739,230 @@ class AnimeControllerIT {
 		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
 	}
 
+
+	@Test
+	@DisplayName("replaceAll updates the existing animes and reports the missing ids when successful")
+	void replaceAll_UpdatesExistingAnimesAndReportsMissingIds_WhenSuccessful() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		List<AnimePutRequestBody> animePutRequestBodies = List.of(
+				AnimePutRequestBody.builder().id(savedAnime.getId()).name("Overlord").build(),
+				AnimePutRequestBody.builder().id(savedAnime.getId() + 1000).name("Akira").build());
+
+		ResponseEntity<AnimeBulkResponse> responseEntity = testRestTemplateRoleAdmin.exchange("/animes/admin/bulk",
+				HttpMethod.PUT, new HttpEntity<>(animePutRequestBodies), AnimeBulkResponse.class);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(responseEntity.getBody()).isNotNull();
+
+		Assertions.assertThat(responseEntity.getBody().getAffectedIds()).containsExactly(savedAnime.getId());
+
+		Assertions.assertThat(responseEntity.getBody().getMissingIds()).containsExactly(savedAnime.getId() + 1000);
+
+		Assertions.assertThat(animeRepository.findById(savedAnime.getId())).get().extracting(Anime::getName)
+				.isEqualTo("Overlord");
+	}
+
+	@Test
+	@DisplayName("replaceAll keeps the committed renames and reports the one that violates the unique name")
+	void replaceAll_ReportsRejectedRename_WhenTwoAnimesGetTheSameName() {
+		Anime akira = animeRepository.save(Anime.builder().name("Akira").build());
+		Anime bleach = animeRepository.save(Anime.builder().name("Bleach").build());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		List<AnimePutRequestBody> animePutRequestBodies = List.of(
+				AnimePutRequestBody.builder().id(akira.getId()).name("Overlord").build(),
+				AnimePutRequestBody.builder().id(bleach.getId()).name("Overlord").build());
+
+		ResponseEntity<AnimeBulkResponse> responseEntity = testRestTemplateRoleAdmin.exchange("/animes/admin/bulk",
+				HttpMethod.PUT, new HttpEntity<>(animePutRequestBodies), AnimeBulkResponse.class);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(responseEntity.getBody()).isNotNull();
+
+		Assertions.assertThat(responseEntity.getBody().getAffectedIds()).containsExactly(akira.getId());
+
+		Assertions.assertThat(responseEntity.getBody().getRejected()).extracting(AnimeBulkItemResult::getId)
+				.containsExactly(bleach.getId());
+
+		Assertions.assertThat(animeRepository.findById(akira.getId())).get().extracting(Anime::getName)
+				.isEqualTo("Overlord");
+
+		Assertions.assertThat(animeRepository.findById(bleach.getId())).get().extracting(Anime::getName)
+				.isEqualTo("Bleach");
+	}
+
+	@Test
+	@DisplayName("deleteAll removes the existing animes and reports the missing ids when successful")
+	void deleteAll_RemovesExistingAnimesAndReportsMissingIds_WhenSuccessful() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<AnimeBulkResponse> responseEntity = testRestTemplateRoleAdmin.exchange("/animes/admin/bulk",
+				HttpMethod.DELETE, new HttpEntity<>(List.of(savedAnime.getId(), savedAnime.getId() + 1000)),
+				AnimeBulkResponse.class);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(responseEntity.getBody()).isNotNull();
+
+		Assertions.assertThat(responseEntity.getBody().getAffectedIds()).containsExactly(savedAnime.getId());
+
+		Assertions.assertThat(responseEntity.getBody().getMissingIds()).containsExactly(savedAnime.getId() + 1000);
+
+		Assertions.assertThat(animeRepository.findById(savedAnime.getId())).isEmpty();
+	}
+
+	@Test
+	@DisplayName("async list returns list of anime inside page object and records the executor metrics when successful")
+	void asyncList_ReturnsListOfAnimesInsidePageObject_WhenSuccessful() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(USER);
+
+		PageableResponse<Anime> animePage = testRestTemplateRoleUser.exchange("/animes/async", HttpMethod.GET, null,
+				new ParameterizedTypeReference<PageableResponse<Anime>>() {
+				}).getBody();
+
+		Assertions.assertThat(animePage).isNotNull();
+
+		Assertions.assertThat(animePage.toList()).extracting(Anime::getName).containsExactly(savedAnime.getName());
+
+		String scrape = testRestTemplateRoleUser.getForObject("/actuator/prometheus", String.class);
+
+		Assertions.assertThat(scrape).isNotNull().contains("name=\"animeAsync\"")
+				.contains("uri=\"/animes/async\"");
+	}
+
+	@Test
+	@DisplayName("async findById returns 400 when the anime is not found")
+	void asyncFindById_Returns400_WhenAnimeIsNotFound() {
+		ndrewCodingUserRepository.save(USER);
+
+		ResponseEntity<String> responseEntity = testRestTemplateRoleUser.getForEntity("/animes/async/{id}",
+				String.class, 1000);
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+		Assertions.assertThat(responseEntity.getBody()).contains("Anime not Found");
+	}
+
+	@Test
+	@DisplayName("async save persists anime when successful")
+	void asyncSave_PersistsAnime_WhenSuccessful() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<Anime> animeResponseEntity = testRestTemplateRoleAdmin.postForEntity("/animes/async/admin",
+				AnimePostRequestBodyCreator.createAnimePostRequestBody(), Anime.class);
+
+		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+		Assertions.assertThat(animeResponseEntity.getBody()).isNotNull();
+
+		Assertions.assertThat(animeRepository.findById(animeResponseEntity.getBody().getId())).isPresent();
+	}
+
+	@Test
+	@DisplayName("async save returns 403 when user is not admin")
+	void asyncSave_Returns_403_WhenUserIsNotAdmin() {
+		ndrewCodingUserRepository.save(USER);
+
+		ResponseEntity<Anime> animeResponseEntity = testRestTemplateRoleUser.postForEntity("/animes/async/admin",
+				AnimePostRequestBodyCreator.createAnimePostRequestBody(), Anime.class);
+
+		Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+		Assertions.assertThat(animeRepository.count()).isZero();
+	}
+
+	@Test
+	@DisplayName("async list returns 304 for a matching catalog ETag and 200 once an anime is added")
+	void asyncList_HonorsIfNoneMatch_UntilCatalogChanges() {
+		animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		String eTag = testRestTemplateRoleAdmin.getForEntity("/animes/async", String.class).getHeaders().getETag();
+
+		Assertions.assertThat(eTag).isNotNull();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+
+		ResponseEntity<String> notModifiedResponse = testRestTemplateRoleAdmin.exchange("/animes/async",
+				HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		testRestTemplateRoleAdmin.postForEntity("/animes/async/admin",
+				AnimePostRequestBody.builder().name("Akira").build(), Anime.class);
+
+		ResponseEntity<String> modifiedResponse = testRestTemplateRoleAdmin.exchange("/animes/async",
+				HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(modifiedResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	@DisplayName("async replace and delete change the anime when successful")
+	void asyncReplaceAndDelete_ChangeAnime_WhenSuccessful() {
+		Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+		ndrewCodingUserRepository.save(ADMIN);
+
+		savedAnime.setName("new name");
+
+		ResponseEntity<Void> replaceResponse = testRestTemplateRoleAdmin.exchange("/animes/async/admin",
+				HttpMethod.PUT, new HttpEntity<>(savedAnime), Void.class);
+
+		Assertions.assertThat(replaceResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+		Assertions.assertThat(animeRepository.findById(savedAnime.getId())).get().extracting(Anime::getName)
+				.isEqualTo("new name");
+
+		ResponseEntity<Void> deleteResponse = testRestTemplateRoleAdmin.exchange("/animes/async/admin/{id}",
+				HttpMethod.DELETE, null, Void.class, savedAnime.getId());
+
+		Assertions.assertThat(deleteResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+		Assertions.assertThat(animeRepository.findById(savedAnime.getId())).isEmpty();
+	}
+
+	@Test
+	@DisplayName("list does not create a session for a bearer token when HTTP Basic keeps sessions")
+	void list_DoesNotCreateSession_WhenAuthenticatedByBearerToken() {
+		ndrewCodingUserRepository.save(USER);
+
+		TokenResponse tokenResponse = testRestTemplateRoleUser.postForObject("/auth/token", null, TokenResponse.class);
+
+		Assertions.assertThat(tokenResponse).isNotNull();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(tokenResponse.getAccessToken());
+
+		ResponseEntity<String> listResponse = testRestTemplateRoleUser.exchange("/animes", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(listResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(listResponse.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+	}
+
+	private static double statementsPerRequestSum(String scrape, String uri) {
+		Matcher matcher = Pattern.compile("ndrewcoding_jdbc_statements_per_request_sum\\{[^}]*uri=\"" + Pattern.quote(uri)
+				+ "\"[^}]*} (\\S+)").matcher(scrape);
+		return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+	}
+
+	private static String gunzip(byte[] body) throws IOException {
+		try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
 }
@@ -0,0 +1,75 @@
+package br.com.ndrewcoding.springboot2.integration;
+
+import java.time.Duration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.repository.NdrewCodingUserRepository;
+import br.com.ndrewcoding.springboot2.responses.AnimeQueuedResponse;
+import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"ndrewcoding.anime.write-behind.enabled=true",
+		"ndrewcoding.anime.write-behind.journal=target/anime-queue-it.journal" })
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class AnimeQueueControllerIT {
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+	@Autowired
+	private AnimeRepository animeRepository;
+	@Autowired
+	private NdrewCodingUserRepository ndrewCodingUserRepository;
+	private static final NdrewCodingUser ADMIN = NdrewCodingUser.builder().name("Andrew Monteiro").username("andrew")
+			.password("{bcrypt}$2a$10$e8xFDPx1uyg16xvNTDPnb.xLVFA8Wiu7tWsge4RlziNV/Xkp19rlS")
+			.authorities("ROLE_USER,ROLE_ADMIN").build();
+
+	@Test
+	@DisplayName("enqueue returns 202 with a tracking id whose status turns to created once the anime is inserted")
+	void enqueue_Returns202AndTracksAnimeUntilCreated_WhenSuccessful() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<AnimeQueuedResponse> accepted = testRestTemplate.withBasicAuth("andrew", "ndrewcoding")
+				.postForEntity("/animes/admin/queue", AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+						AnimeQueuedResponse.class);
+
+		Assertions.assertThat(accepted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+
+		Assertions.assertThat(accepted.getBody()).isNotNull();
+
+		Assertions.assertThat(accepted.getHeaders().getLocation()).isNotNull();
+
+		AnimeQueuedResponse status = accepted.getBody();
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (status.getStatus() == AnimeQueuedResponse.Status.QUEUED && System.nanoTime() < deadline) {
+			status = testRestTemplate.withBasicAuth("andrew", "ndrewcoding")
+					.getForObject(accepted.getHeaders().getLocation(), AnimeQueuedResponse.class);
+		}
+
+		Assertions.assertThat(status.getStatus()).isEqualTo(AnimeQueuedResponse.Status.CREATED);
+
+		Assertions.assertThat(animeRepository.findById(status.getId())).isPresent();
+	}
+
+	@Test
+	@DisplayName("status returns 400 when the tracking id is unknown")
+	void status_Returns400_WhenTrackingIdIsUnknown() {
+		ndrewCodingUserRepository.save(ADMIN);
+
+		ResponseEntity<String> responseEntity = testRestTemplate.withBasicAuth("andrew", "ndrewcoding")
+				.getForEntity("/animes/admin/queue/{trackingId}", String.class, "unknown");
+
+		Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+}
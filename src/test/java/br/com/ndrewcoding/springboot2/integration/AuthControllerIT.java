@@ -0,0 +1,107 @@
+package br.com.ndrewcoding.springboot2.integration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.repository.NdrewCodingUserRepository;
+import br.com.ndrewcoding.springboot2.responses.TokenResponse;
+import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "ndrewcoding.security.stateless=true")
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class AuthControllerIT {
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+	@Autowired
+	private NdrewCodingUserRepository ndrewCodingUserRepository;
+	@LocalServerPort
+	private int port;
+	private static final NdrewCodingUser USER = NdrewCodingUser.builder().name("Andrew Bunro").username("bunro")
+			.password("{bcrypt}$2a$10$e8xFDPx1uyg16xvNTDPnb.xLVFA8Wiu7tWsge4RlziNV/Xkp19rlS").authorities("ROLE_USER")
+			.build();
+
+	@Test
+	@DisplayName("token grants the roles of the authenticated user without creating a session")
+	void token_GrantsUserRolesWithoutSession_WhenSuccessful() {
+		ndrewCodingUserRepository.save(USER);
+
+		ResponseEntity<TokenResponse> tokenResponseEntity = testRestTemplate.withBasicAuth("bunro", "ndrewcoding")
+				.postForEntity("/auth/token", null, TokenResponse.class);
+
+		Assertions.assertThat(tokenResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		Assertions.assertThat(tokenResponseEntity.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+
+		TokenResponse tokenResponse = tokenResponseEntity.getBody();
+
+		Assertions.assertThat(tokenResponse).isNotNull();
+
+		Assertions.assertThat(tokenResponse.getTokenType()).isEqualTo("Bearer");
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(tokenResponse.getAccessToken());
+
+		ResponseEntity<String> listResponse = testRestTemplate.exchange("/animes", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(listResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		ResponseEntity<Anime> saveResponse = testRestTemplate.exchange("/animes/admin", HttpMethod.POST,
+				new HttpEntity<>(AnimePostRequestBodyCreator.createAnimePostRequestBody(), headers), Anime.class);
+
+		Assertions.assertThat(saveResponse.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+	}
+
+	@Test
+	@DisplayName("a forged bearer token is rejected with 401")
+	void animes_Returns401_WhenBearerTokenIsForged() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth("eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.e30.c2lnbmF0dXJl");
+
+		ResponseEntity<String> response = testRestTemplate.exchange("/animes", HttpMethod.GET,
+				new HttpEntity<>(headers), String.class);
+
+		Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+	}
+
+	@Test
+	@DisplayName("token refuses to issue a new token for a bearer token with 401")
+	void token_Returns401_WhenAuthenticatedByBearerToken() throws IOException, InterruptedException {
+		ndrewCodingUserRepository.save(USER);
+
+		TokenResponse tokenResponse = testRestTemplate.withBasicAuth("bunro", "ndrewcoding")
+				.postForObject("/auth/token", null, TokenResponse.class);
+
+		Assertions.assertThat(tokenResponse).isNotNull();
+
+		// HttpURLConnection cannot read a 401 answer to a POST, so the renewal goes through the JDK client
+		HttpRequest renewRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/token"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenResponse.getAccessToken())
+				.POST(HttpRequest.BodyPublishers.noBody()).build();
+		HttpResponse<String> renewResponse = HttpClient.newHttpClient().send(renewRequest,
+				HttpResponse.BodyHandlers.ofString());
+
+		Assertions.assertThat(renewResponse.statusCode()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+	}
+}
@@ -0,0 +1,152 @@
+package br.com.ndrewcoding.springboot2.integration;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import br.com.ndrewcoding.springboot2.cache.AnimeCatalogVersion;
+import br.com.ndrewcoding.springboot2.datasource.ReadWriteRoutingDataSource;
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.service.AnimeService;
+import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa", "spring.datasource.password=", "spring.jpa.hibernate.ddl-auto=create",
+		"ndrewcoding.datasource.replica.url=" + ReadReplicaRoutingIT.REPLICA_URL,
+		"ndrewcoding.datasource.replica.read-your-writes-window=1h", "ndrewcoding.search.index.enabled=false",
+		"spring.datasource.hikari.connection-timeout=2500",
+		"spring.datasource.hikari.data-source-properties.cachePrepStmts=true",
+		"ndrewcoding.datasource.replica.hikari.validation-timeout=1500" })
+class ReadReplicaRoutingIT {
+	static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private AnimeService animeService;
+	@Autowired
+	private AnimeCatalogVersion animeCatalogVersion;
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private HikariDataSource replicaDataSource;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	private JdbcTemplate primary;
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void setUp() {
+		primary = new JdbcTemplate(dataSource);
+		replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+		// two separate H2 databases stand in for a replicated pair, so the replica gets the primary's schema only
+		Integer replicaTables = replica.queryForObject(
+				"select count(*) from information_schema.tables where table_name = 'ANIME'", Integer.class);
+		if (replicaTables == null || replicaTables == 0) {
+			primary.queryForList("script nodata", String.class).forEach(replica::execute);
+		}
+		primary.update("delete from anime");
+		replica.update("delete from anime");
+		animeCatalogVersion.invalidate();
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	@DisplayName("read-only queries are served by the replica")
+	void listAllNonPageable_ReadsFromReplica_WhenUserHasNotWritten() {
+		replica.update("insert into anime (id, name, version, updated_at) values (?, ?, 0, ?)", 1000L,
+				"Only On Replica", Timestamp.from(Instant.now()));
+		authenticate("reader");
+
+		double replicaReads = replicaReads();
+
+		Assertions.assertThat(animeService.listAllNonPageable()).extracting(Anime::getName)
+				.containsExactly("Only On Replica");
+
+		Assertions.assertThat(replicaReads()).isGreaterThan(replicaReads);
+
+		Assertions.assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "ndrewcoding-replica")
+				.gauge()).isNotNull();
+	}
+
+	@Test
+	@DisplayName("a user reads their own writes from the primary while other users keep reading the replica")
+	void listAllNonPageable_ReadsFromPrimary_WhenUserWroteRecently() {
+		authenticate("writer");
+		Anime savedAnime = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()).getAnime();
+
+		Assertions.assertThat(animeService.listAllNonPageable()).extracting(Anime::getName)
+				.containsExactly(savedAnime.getName());
+
+		Assertions.assertThat(replica.queryForObject("select count(*) from anime", Integer.class)).isZero();
+
+		authenticate("reader");
+
+		Assertions.assertThat(animeService.listAllNonPageable()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("loads that fill the shared caches read from the primary, so the replica lag is not cached for everyone")
+	void findAnimeByIdOrThrowBadRequestException_LoadsFromPrimary_WhenCacheIsFilledByAnotherUser() {
+		authenticate("writer");
+		Anime savedAnime = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()).getAnime();
+
+		authenticate("reader");
+
+		Assertions.assertThat(animeService.findAnimeByIdOrThrowBadRequestException(savedAnime.getId()).getName())
+				.isEqualTo(savedAnime.getName());
+
+		Assertions.assertThat(animeService.getCatalogVersion()).startsWith("1-");
+
+		authenticate("writer");
+
+		Assertions.assertThat(animeService.findAnimeByIdOrThrowBadRequestException(savedAnime.getId()).getName())
+				.isEqualTo(savedAnime.getName());
+
+		Assertions.assertThat(animeService.listAllNonPageable()).extracting(Anime::getName)
+				.containsExactly(savedAnime.getName());
+
+		authenticate("reader");
+
+		Assertions.assertThat(animeService.listAllNonPageable()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("the replica pool takes the primary's pool settings unless the replica overrides them")
+	void replicaDataSource_InheritsPrimaryPoolSettings() {
+		Assertions.assertThat(replicaDataSource.getPoolName()).isEqualTo("ndrewcoding-replica");
+		Assertions.assertThat(replicaDataSource.getConnectionTimeout()).isEqualTo(2500);
+		Assertions.assertThat(replicaDataSource.getDataSourceProperties()).containsEntry("cachePrepStmts", "true");
+		Assertions.assertThat(replicaDataSource.getValidationTimeout()).isEqualTo(1500);
+		Assertions.assertThat(replicaDataSource.isReadOnly()).isTrue();
+	}
+
+	private void authenticate(String username) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+	}
+
+	private double replicaReads() {
+		return meterRegistry.get(ReadWriteRoutingDataSource.COUNTER).tag("target", "replica").counter().count();
+	}
+}
@@ -0,0 +1,290 @@
+package br.com.ndrewcoding.springboot2.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ndrewcoding.springboot2.Springboot2EssentialsApplication;
+import br.com.ndrewcoding.springboot2.responses.TokenResponse;
+
+/**
+ * Boots the application on an in-memory H2 database seeded with a catalog of the given size and drives it with
+ * closed-loop workers, writing one HdrHistogram distribution per operation to the output directory.
+ * <p>
+ * Arguments use the {@code --key=value} form: catalog-size, users, threads, warmup, duration, auth (basic or bearer),
+ * mix (weights such as {@code list=30,find-by-id=40,all=1}), gzip (send {@code Accept-Encoding: gzip}) and output.
+ * Application properties can be overridden with system properties, e.g.
+ * {@code -Dndrewcoding.security.password-cache.ttl=0s}.
+ */
+public class AnimeLoadHarness {
+    private static final String DEFAULT_MIX = "list=30,find-by-id=40,search=15,seek=10,save=3,replace=2";
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, String> settings;
+    private final long catalogSize;
+    private final int users;
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Path output;
+    private final boolean gzip;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+
+    private AnimeLoadHarness(Map<String, String> settings) {
+        this.settings = settings;
+        this.catalogSize = Long.parseLong(settings.getOrDefault("catalog-size", "10000"));
+        this.users = Integer.parseInt(settings.getOrDefault("users", "1"));
+        this.threads = Integer.parseInt(settings.getOrDefault("threads", "8"));
+        this.warmup = DurationStyle.detectAndParse(settings.getOrDefault("warmup", "10s"));
+        this.duration = DurationStyle.detectAndParse(settings.getOrDefault("duration", "30s"));
+        this.output = Paths.get(settings.getOrDefault("output", "target/load"));
+        this.gzip = Boolean.parseBoolean(settings.getOrDefault("gzip", "false"));
+
+        String[] weights = settings.getOrDefault("mix", DEFAULT_MIX).split(",");
+        this.operations = new LoadOperation[weights.length];
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            String[] weight = weights[i].trim().split("=");
+            operations[i] = LoadOperation.of(weight[0]);
+            total += weight.length > 1 ? Integer.parseInt(weight[1]) : 1;
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] setting = arg.replaceFirst("^--", "").split("=", 2);
+            settings.put(setting[0], setting.length > 1 ? setting[1] : "true");
+        }
+        new AnimeLoadHarness(settings).run();
+    }
+
+    private void run() throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        SpringApplication application = new SpringApplication(Springboot2EssentialsApplication.class);
+        application.addListeners(new CatalogSeeder(catalogSize, users));
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) application.run(
+                "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--server.port=0",
+                "--ndrewcoding.security.token.ttl=24h")) {
+            URI baseUri = URI.create("http://localhost:" + context.getWebServer().getPort());
+            List<String> authorizations = authorizations(baseUri, context.getBean(ObjectMapper.class));
+
+            System.out.printf("Warming up for %s with %d threads%n", warmup, threads);
+            drive(baseUri, authorizations, warmup);
+
+            System.gc();
+            long heapAfterSeed = heapUsed();
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+            long gcCount = gcCount();
+            long gcTime = gcTime();
+
+            System.out.printf("Measuring for %s with %d threads%n", duration, threads);
+            Map<LoadOperation, Result> results = drive(baseUri, authorizations, duration);
+
+            Files.createDirectories(output);
+            for (Map.Entry<LoadOperation, Result> entry : results.entrySet()) {
+                try (PrintStream printStream = new PrintStream(
+                        Files.newOutputStream(output.resolve(entry.getKey().getKey() + ".hgrm")), false,
+                        StandardCharsets.UTF_8)) {
+                    entry.getValue().histogram.outputPercentileDistribution(printStream, MICROS_PER_MILLI);
+                }
+            }
+
+            try (PrintStream summary = new PrintStream(Files.newOutputStream(output.resolve("summary.txt")), false,
+                    StandardCharsets.UTF_8)) {
+                for (PrintStream printStream : new PrintStream[] { System.out, summary }) {
+                    printStream.printf("catalog-size=%d users=%d threads=%d duration=%s settings=%s%n", catalogSize,
+                            users, threads, duration, settings);
+                    printStream.printf("%-12s %10s %10s %10s %10s %10s %10s %8s%n", "operation", "count", "ops/s",
+                            "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+                    results.forEach((operation, result) -> printStream.printf(
+                            "%-12s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d%n", operation.getKey(),
+                            result.histogram.getTotalCount(),
+                            result.histogram.getTotalCount() / (duration.toMillis() / MICROS_PER_MILLI),
+                            millis(result.histogram.getValueAtPercentile(50)),
+                            millis(result.histogram.getValueAtPercentile(99)),
+                            millis(result.histogram.getValueAtPercentile(99.9)), millis(result.histogram.getMaxValue()),
+                            result.errors));
+                    printStream.printf("heap after seed %,d MB, peak heap %,d MB, %d GCs taking %,d ms%n",
+                            heapAfterSeed >> 20, peakHeapUsed() >> 20, gcCount() - gcCount, gcTime() - gcTime);
+                    printStream.printf("peak threads %d including %d load workers, %d tomcat threads%n",
+                            ManagementFactory.getThreadMXBean().getPeakThreadCount(), threads, tomcatThreads());
+                }
+            }
+            System.out.println("Histograms written to " + output.toAbsolutePath());
+        }
+    }
+
+    private List<String> authorizations(URI baseUri, ObjectMapper objectMapper) throws IOException, InterruptedException {
+        boolean bearer = "bearer".equals(settings.getOrDefault("auth", "basic"));
+        List<String> authorizations = new ArrayList<>(users);
+        for (int index = 0; index < users; index++) {
+            String basic = "Basic " + Base64.getEncoder().encodeToString(
+                    (CatalogSeeder.username(index) + ":" + CatalogSeeder.PASSWORD).getBytes(StandardCharsets.UTF_8));
+            if (!bearer) {
+                authorizations.add(basic);
+                continue;
+            }
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(baseUri.resolve("/auth/token"))
+                    .header(HttpHeaders.AUTHORIZATION, basic).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not issue a token: HTTP " + response.statusCode());
+            }
+            authorizations.add("Bearer " + objectMapper.readValue(response.body(), TokenResponse.class).getAccessToken());
+        }
+        return authorizations;
+    }
+
+    private Map<LoadOperation, Result> drive(URI baseUri, List<String> authorizations, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int index = 0; index < threads; index++) {
+            Worker worker = new Worker(baseUri, authorizations.get(index % authorizations.size()), deadline);
+            worker.setName("load-worker-" + index);
+            worker.start();
+            workers.add(worker);
+        }
+
+        Map<LoadOperation, Result> results = new EnumMap<>(LoadOperation.class);
+        for (Worker worker : workers) {
+            worker.join();
+            worker.results.forEach((operation, result) -> results.merge(operation, result, Result::add));
+        }
+        return results;
+    }
+
+    private LoadOperation nextOperation(ThreadLocalRandom random) {
+        int weight = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (weight < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long peakHeapUsed() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    private static long tomcatThreads() {
+        return Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().startsWith("http-nio-"))
+                .count();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static class Result {
+        private final Histogram histogram = new Histogram(3);
+        private long errors;
+
+        private Result add(Result other) {
+            histogram.add(other.histogram);
+            errors += other.errors;
+            return this;
+        }
+    }
+
+    private class Worker extends Thread {
+        private final URI baseUri;
+        private final String authorization;
+        private final long deadline;
+        private final Map<LoadOperation, Result> results = new EnumMap<>(LoadOperation.class);
+
+        private Worker(URI baseUri, String authorization, long deadline) {
+            this.baseUri = baseUri;
+            this.authorization = authorization;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                LoadOperation operation = nextOperation(random);
+                HttpRequest.Builder requestBuilder = operation.request(baseUri, catalogSize, random)
+                        .header(HttpHeaders.AUTHORIZATION, authorization).timeout(Duration.ofMinutes(5));
+                if (gzip) {
+                    requestBuilder.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                }
+                HttpRequest request = requestBuilder.build();
+
+                long start = System.nanoTime();
+                int status;
+                try {
+                    status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException exception) {
+                    status = -1;
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                Result result = results.computeIfAbsent(operation, key -> new Result());
+                result.histogram.recordValue((System.nanoTime() - start) / 1000);
+                if (status < 200 || status >= 400) {
+                    result.errors++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.ndrewcoding.springboot2.load;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.ndrewcoding.springboot2.domain.NdrewCodingUser;
+import br.com.ndrewcoding.springboot2.repository.NdrewCodingUserRepository;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CatalogSeeder implements ApplicationListener<ApplicationStartedEvent> {
+    static final String PASSWORD = "ndrewcoding";
+    private static final String ENCODED_PASSWORD = "{bcrypt}$2a$10$e8xFDPx1uyg16xvNTDPnb.xLVFA8Wiu7tWsge4RlziNV/Xkp19rlS";
+    private static final int BATCH_SIZE = 10_000;
+    private static final int SEQUENCE_GAP = 100;
+
+    private final long catalogSize;
+    private final int users;
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        long start = System.nanoTime();
+        seedAnimes(context.getBean(JdbcTemplate.class));
+        seedUsers(context.getBean(NdrewCodingUserRepository.class));
+        System.out.printf("Seeded %,d animes and %d users in %,d ms%n", catalogSize, users,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    static String username(int index) {
+        return "load-" + index;
+    }
+
+    private void seedAnimes(JdbcTemplate jdbcTemplate) {
+        Timestamp updatedAt = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= catalogSize; id++) {
+            batch.add(new Object[] { id, LoadOperation.animeName(id), updatedAt });
+            if (batch.size() == BATCH_SIZE || id == catalogSize) {
+                jdbcTemplate.batchUpdate("insert into anime (id, name, version, updated_at) values (?, ?, 0, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("alter sequence anime_sequence restart with " + (catalogSize + SEQUENCE_GAP));
+    }
+
+    private void seedUsers(NdrewCodingUserRepository ndrewCodingUserRepository) {
+        for (int index = 0; index < users; index++) {
+            ndrewCodingUserRepository.save(NdrewCodingUser.builder().name("Load User " + index)
+                    .username(username(index)).password(ENCODED_PASSWORD).authorities("ROLE_USER,ROLE_ADMIN")
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.ndrewcoding.springboot2.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import br.com.ndrewcoding.springboot2.util.SeekCursor;
+
+public enum LoadOperation {
+    LIST("list") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            long pages = Math.max(1, catalogSize / PAGE_SIZE);
+            return get(baseUri, "/animes?size=" + PAGE_SIZE + "&page=" + random.nextLong(pages));
+        }
+    },
+    FIND_BY_ID("find-by-id") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return get(baseUri, "/animes/" + randomId(catalogSize, random));
+        }
+    },
+    SEARCH("search") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return get(baseUri, "/animes/search?size=" + PAGE_SIZE + "&q="
+                    + animeName(randomId(catalogSize, random)).substring(6, 12));
+        }
+    },
+    SEEK("seek") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            String cursor = new SeekCursor("id", Sort.Direction.ASC, false, randomId(catalogSize, random), null)
+                    .encode();
+            return get(baseUri, "/animes/seek?count=false&size=" + PAGE_SIZE + "&cursor=" + cursor);
+        }
+    },
+    ASYNC_LIST("async-list") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            long pages = Math.max(1, catalogSize / PAGE_SIZE);
+            return get(baseUri, "/animes/async?size=" + PAGE_SIZE + "&page=" + random.nextLong(pages));
+        }
+    },
+    ASYNC_FIND_BY_ID("async-find-by-id") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return get(baseUri, "/animes/async/" + randomId(catalogSize, random));
+        }
+    },
+    ALL("all") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return get(baseUri, "/animes/all");
+        }
+    },
+    SAVE("save") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return json(baseUri, "/animes/admin", "{\"name\":\"Load " + UUID.randomUUID() + "\"}", "POST");
+        }
+    },
+    QUEUE("queue") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            return json(baseUri, "/animes/admin/queue", "{\"name\":\"Load " + UUID.randomUUID() + "\"}", "POST");
+        }
+    },
+    REPLACE("replace") {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random) {
+            long id = randomId(catalogSize, random);
+            return json(baseUri, "/animes/admin", "{\"id\":" + id + ",\"name\":\"" + animeName(id) + "\"}", "PUT");
+        }
+    };
+
+    private static final int PAGE_SIZE = 20;
+
+    private final String key;
+
+    LoadOperation(String key) {
+        this.key = key;
+    }
+
+    abstract HttpRequest.Builder request(URI baseUri, long catalogSize, ThreadLocalRandom random);
+
+    public String getKey() {
+        return key;
+    }
+
+    public static LoadOperation of(String key) {
+        for (LoadOperation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "'");
+    }
+
+    static String animeName(long id) {
+        return String.format("Anime %08d", id);
+    }
+
+    private static long randomId(long catalogSize, ThreadLocalRandom random) {
+        return random.nextLong(catalogSize) + 1;
+    }
+
+    private static HttpRequest.Builder get(URI baseUri, String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET();
+    }
+
+    private static HttpRequest.Builder json(URI baseUri, String path, String body, String method) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterChain;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JdbcRequestMetricsFilterTest {
+    private static final String STATEMENTS = "ndrewcoding.jdbc.statements.per.request";
+    private static final String SELECT = "select anime0_.id as id1_0_ from anime anime0_ where anime0_.id=?";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcRequestMetricsFilter jdbcRequestMetricsFilter;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        jdbcRequestMetricsFilter = new JdbcRequestMetricsFilter(meterRegistry, Mockito.mock(SlowQueryLogger.class), 10);
+    }
+
+    @AfterEach
+    void tearDown(){
+        JdbcRequestStatistics.end();
+    }
+
+    @Test
+    @DisplayName("doFilter records the statements of a request once it returns")
+    void doFilter_RecordsStatements_WhenRequestReturns() throws Exception {
+        MockHttpServletRequest request = request("/animes/{id}");
+
+        jdbcRequestMetricsFilter.doFilter(request, new MockHttpServletResponse(),
+                (servletRequest, servletResponse) -> JdbcRequestStatistics.current().statementExecuted(SELECT));
+
+        Assertions.assertThat(summary("/animes/{id}").count()).isEqualTo(1);
+
+        Assertions.assertThat(summary("/animes/{id}").totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("doFilter records the statements run on other threads once the async request completes")
+    void doFilter_RecordsAsyncStatements_WhenAsyncRequestCompletes() throws Exception {
+        MockHttpServletRequest request = request("/animes/async/{id}");
+        request.setAsyncSupported(true);
+        AtomicReference<Runnable> asyncWork = new AtomicReference<>();
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            servletRequest.startAsync();
+            asyncWork.set(JdbcRequestStatistics
+                    .propagate(() -> JdbcRequestStatistics.current().statementExecuted(SELECT)));
+        };
+
+        jdbcRequestMetricsFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        Assertions.assertThat(meterRegistry.find(STATEMENTS).summary()).isNull();
+
+        Thread worker = new Thread(asyncWork.get());
+        worker.start();
+        worker.join();
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        Assertions.assertThat(summary("/animes/async/{id}").count()).isEqualTo(1);
+
+        Assertions.assertThat(summary("/animes/async/{id}").totalAmount()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private DistributionSummary summary(String uri) {
+        return meterRegistry.get(STATEMENTS).tag("uri", uri).summary();
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.ndrewcoding.springboot2.metrics;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+
+class QueryMetricsListenerTest {
+    private static final String SELECT = "select anime0_.id as id1_0_, anime0_.name as name2_0_ from anime anime0_ where anime0_.id=?";
+    private static final String SELECT_USER = "select ndrewcodin0_.id as id1_1_ from ndrew_coding_user ndrewcodin0_ where ndrewcodin0_.username=?";
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowQueryLogger slowQueryLogger;
+    private QueryMetricsListener queryMetricsListener;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        slowQueryLogger = Mockito.mock(SlowQueryLogger.class);
+        queryMetricsListener = new QueryMetricsListener(meterRegistry, slowQueryLogger, Duration.ofMillis(100), 100);
+    }
+
+    @AfterEach
+    void tearDown(){
+        JdbcRequestStatistics.end();
+    }
+
+    @Test
+    @DisplayName("afterQuery times the query by type and table")
+    void afterQuery_TimesQueryByTypeAndTable(){
+        queryMetricsListener.afterQuery(executionInfo(5), List.of(new QueryInfo(SELECT)));
+
+        Assertions.assertThat(meterRegistry.get(QueryMetricsListener.TIMER).tag("type", "select")
+                .tag("table", "anime").tag("outcome", "success").timer().count()).isEqualTo(1);
+
+        Mockito.verifyNoInteractions(slowQueryLogger);
+    }
+
+    @Test
+    @DisplayName("afterQuery logs the query when it is slower than the threshold")
+    void afterQuery_LogsQuery_WhenSlowerThanThreshold(){
+        queryMetricsListener.afterQuery(executionInfo(250), List.of(new QueryInfo(SELECT)));
+
+        Mockito.verify(slowQueryLogger).slowQuery(SELECT, 250, 0);
+    }
+
+    @Test
+    @DisplayName("afterQuery binds the result set so its rows count towards its own statement and request")
+    void afterQuery_CountsRowsOfResultSetForItsStatementAndRequest() throws SQLException {
+        JdbcRequestStatistics jdbcRequestStatistics = JdbcRequestStatistics.begin();
+        ResultSet animes = resultSet(true, true, false);
+        ResultSet users = resultSet(true, false);
+
+        queryMetricsListener.afterQuery(executionInfo(1, animes), List.of(new QueryInfo(SELECT)));
+        animes.next();
+        queryMetricsListener.afterQuery(executionInfo(1, users), List.of(new QueryInfo(SELECT_USER)));
+        users.next();
+        users.next();
+        animes.next();
+        animes.next();
+
+        Assertions.assertThat(jdbcRequestStatistics.getStatements()).isEqualTo(2);
+        Assertions.assertThat(jdbcRequestStatistics.getRows()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.get(QueryMetricsListener.ROWS).tag("table", "anime").counter().count())
+                .isEqualTo(2);
+        Assertions.assertThat(meterRegistry.get(QueryMetricsListener.ROWS).tag("table", "ndrew_coding_user")
+                .counter().count()).isEqualTo(1);
+
+        Mockito.verify(slowQueryLogger, Mockito.never()).slowQuery(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("a result set that was never bound to a statement counts no rows")
+    void resultSet_CountsNoRows_WhenNotBound() throws SQLException {
+        JdbcRequestStatistics jdbcRequestStatistics = JdbcRequestStatistics.begin();
+        ResultSet animes = resultSet(true, false);
+
+        animes.next();
+
+        Assertions.assertThat(jdbcRequestStatistics.getRows()).isZero();
+    }
+
+    private static ResultSet resultSet(Boolean next, Boolean... nexts) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.next()).thenReturn(next, nexts);
+        ProxyConfig proxyConfig = ProxyConfig.Builder.create()
+                .resultSetProxyLogicFactory(new RowCountingResultSetProxyLogicFactory()).build();
+        return proxyConfig.getJdbcProxyFactory().createResultSet(resultSet, new ConnectionInfo(), proxyConfig);
+    }
+
+    private ExecutionInfo executionInfo(long elapsedMillis) {
+        return executionInfo(elapsedMillis, null);
+    }
+
+    private ExecutionInfo executionInfo(long elapsedMillis, ResultSet resultSet) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setResult(resultSet);
+        executionInfo.setElapsedTime(elapsedMillis);
+        executionInfo.setSuccess(true);
+        return executionInfo;
+    }
+}
@@ -11,6 +11,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import br.com.ndrewcoding.springboot2.domain.Anime;
 import br.com.ndrewcoding.springboot2.util.AnimeCreator;
@@ -20,6 +25,8 @@ import br.com.ndrewcoding.springboot2.util.AnimeCreator;
 class AnimeRepositoryTest {
     @Autowired
     private AnimeRepository animeRepository;
+    @Autowired
+    private TestEntityManager testEntityManager;
 
     @Test
     @DisplayName("Save persists anime when Successful")
@@ -93,6 +100,48 @@ class AnimeRepositoryTest {
         Assertions.assertThat(animes).isEmpty();
     }
 
+    @Test
+    @DisplayName("Find By Name Starting With Ignore Case returns the animes whose name starts with the prefix in any case")
+    void findByNameStartingWithIgnoreCase_ReturnsAnimesStartingWithPrefix_WhenSuccessful(){
+        Anime hajimeNoIppo = this.animeRepository.save(Anime.builder().name("Hajime no Ippo").build());
+        this.animeRepository.save(Anime.builder().name("Ippo").build());
+
+        Page<Anime> animes = this.animeRepository.findByNameStartingWithIgnoreCase("hAJ", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animes.getContent()).containsExactly(hajimeNoIppo);
+    }
+
+    @Test
+    @DisplayName("Find By Keyset returns animes after the boundary ordered by name when Successful")
+    void findByKeyset_ReturnsAnimesAfterBoundaryOrderedByName_WhenSuccessful(){
+        Anime akira = this.animeRepository.save(Anime.builder().name("Akira").build());
+        Anime bleach = this.animeRepository.save(Anime.builder().name("Bleach").build());
+        Anime claymore = this.animeRepository.save(Anime.builder().name("Claymore").build());
+
+        List<Anime> animes = this.animeRepository.findByKeyset("name", Sort.Direction.ASC, akira, 10);
+
+        Assertions.assertThat(animes).containsExactly(bleach, claymore);
+    }
+
+    @Test
+    @DisplayName("Find All By returns the requested page without adding the animes to the persistence context")
+    void findAllBy_ReturnsUnmanagedAnimes_WhenSuccessful(){
+        this.animeRepository.save(Anime.builder().name("Claymore").build());
+        this.animeRepository.save(Anime.builder().name("Akira").build());
+        this.animeRepository.save(Anime.builder().name("Bleach").build());
+
+        Slice<Anime> animes = this.animeRepository.findAllBy(PageRequest.of(0, 2, Sort.by("name")));
+
+        Assertions.assertThat(animes.getContent()).extracting(Anime::getName).containsExactly("Akira", "Bleach");
+
+        Assertions.assertThat(animes.hasNext()).isTrue();
+
+        Assertions.assertThat(animes.getContent()).allSatisfy(anime -> {
+            Assertions.assertThat(anime.getVersion()).isNotNull();
+            Assertions.assertThat(this.testEntityManager.getEntityManager().contains(anime)).isFalse();
+        });
+    }
+
     @Test
     @DisplayName("Save throw ConstraintViolationException when name is empty")
     void save_ThrowsConstraintViolationException_WhenNameIsEmpty(){
@@ -101,7 +150,7 @@ class AnimeRepositoryTest {
 //                .isInstanceOf(ConstraintViolationException.class);
 
         Assertions.assertThatExceptionOfType(ConstraintViolationException.class)
-                .isThrownBy(() -> this.animeRepository.save(anime))
+                .isThrownBy(() -> this.animeRepository.saveAndFlush(anime))
                 .withMessageContaining("The anime name cannot be empty");
     }
 
@@ -0,0 +1,142 @@
+package br.com.ndrewcoding.springboot2.search;
+
+import java.util.List;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.wrapper.SearchPage;
+
+class AnimeSearchIndexTest {
+    private AnimeRepository animeRepositoryMock;
+    private AnimeSearchIndex animeSearchIndex;
+
+    @BeforeEach
+    void setUp(){
+        animeRepositoryMock = Mockito.mock(AnimeRepository.class);
+        animeSearchIndex = new AnimeSearchIndex(animeRepositoryMock, Mockito.mock(PlatformTransactionManager.class),
+                true);
+
+        animeSearchIndex.index(1L, "Hajime no Ippo");
+        animeSearchIndex.index(2L, "Ippo");
+        animeSearchIndex.index(3L, "Ippon");
+        animeSearchIndex.index(4L, "Shingeki no Kyojin");
+    }
+
+    @Test
+    @DisplayName("search ranks exact matches before leading matches before word matches")
+    void search_RanksExactBeforeLeadingBeforeWordMatches(){
+        Page<Long> ids = animeSearchIndex.search("ippo", PageRequest.of(0, 10));
+
+        Assertions.assertThat(ids.getContent()).containsExactly(2L, 3L, 1L);
+
+        Assertions.assertThat(ids.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("search ignores case and accents and requires every query word")
+    void search_IgnoresCaseAndAccentsAndRequiresEveryQueryWord(){
+        Assertions.assertThat(animeSearchIndex.search("NÓ SHIN", PageRequest.of(0, 10)).getContent())
+                .containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("search pages through ranked results")
+    void search_PagesThroughRankedResults(){
+        Page<Long> ids = animeSearchIndex.search("ip", PageRequest.of(1, 2));
+
+        Assertions.assertThat(ids.getContent()).containsExactly(1L);
+
+        Assertions.assertThat(ids.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("search seeds the candidates with the most selective query word")
+    void search_FindsMatchesBeyondPageDepth_WhenOtherWordIsSelective(){
+        AnimeSearchIndex oceanIndex = new AnimeSearchIndex(animeRepositoryMock,
+                Mockito.mock(PlatformTransactionManager.class), true);
+        oceanIndex.index(1L, "Ocean Blue");
+        oceanIndex.index(2L, "Ocean Green");
+        oceanIndex.index(3L, "Ocean Red");
+        oceanIndex.index(4L, "Overman King");
+
+        SearchPage<Long> ids = oceanIndex.search("o king", PageRequest.of(0, 1));
+
+        Assertions.assertThat(ids.getContent()).containsExactly(4L);
+
+        Assertions.assertThat(ids.isTotalApproximate()).isFalse();
+
+        Assertions.assertThat(oceanIndex.search("ocean", PageRequest.of(0, 10)).getContent())
+                .containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("search stops at the requested page and reports the titles it counted as an approximate total")
+    void search_StopsAtRequestedPageAndMarksTotalApproximate_WhenMoreTitlesMatch(){
+        AnimeSearchIndex oceanIndex = new AnimeSearchIndex(animeRepositoryMock,
+                Mockito.mock(PlatformTransactionManager.class), true);
+        oceanIndex.index(1L, "Ocean Blue");
+        oceanIndex.index(2L, "Ocean Green");
+        oceanIndex.index(3L, "Ocean Red");
+        oceanIndex.index(4L, "Ocean White");
+
+        SearchPage<Long> firstPage = oceanIndex.search("ocean", PageRequest.of(0, 1));
+
+        Assertions.assertThat(firstPage.getContent()).hasSize(1);
+
+        Assertions.assertThat(firstPage.getTotalElements()).isEqualTo(1);
+
+        Assertions.assertThat(firstPage.isTotalApproximate()).isTrue();
+
+        Assertions.assertThat(firstPage.hasNext()).isTrue();
+
+        SearchPage<Long> lastPage = oceanIndex.search("ocean", PageRequest.of(3, 1));
+
+        Assertions.assertThat(lastPage.getContent()).containsExactly(4L);
+
+        Assertions.assertThat(lastPage.isTotalApproximate()).isFalse();
+
+        Assertions.assertThat(lastPage.hasNext()).isFalse();
+
+        Assertions.assertThat(lastPage.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("search collects titles starting with the query before word matches that sort earlier")
+    void search_KeepsLeadingMatches_WhenWordMatchesSortEarlier(){
+        animeSearchIndex.index(5L, "Zetman Tabi");
+        animeSearchIndex.index(6L, "Tari Tari");
+
+        SearchPage<Long> ids = animeSearchIndex.search("ta", PageRequest.of(0, 1));
+
+        Assertions.assertThat(ids.getContent()).containsExactly(6L);
+
+        Assertions.assertThat(ids.isTotalApproximate()).isTrue();
+    }
+
+    @Test
+    @DisplayName("onAnimeChanged keeps the index in sync with writes")
+    void onAnimeChanged_KeepsIndexInSyncWithWrites(){
+        Mockito.when(animeRepositoryMock.findAllById(Set.of(2L)))
+                .thenReturn(List.of(Anime.builder().id(2L).name("Overlord").build()));
+
+        animeSearchIndex.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.UPDATED, Set.of(2L), null));
+        animeSearchIndex.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.DELETED, Set.of(3L), null));
+
+        Assertions.assertThat(animeSearchIndex.search("ippo", PageRequest.of(0, 10)).getContent())
+                .containsExactly(1L);
+
+        Assertions.assertThat(animeSearchIndex.search("over", PageRequest.of(0, 10)).getContent())
+                .containsExactly(2L);
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.time.Duration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingPasswordEncoderTest {
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordEncoder delegate;
+    private CachingPasswordEncoder cachingPasswordEncoder;
+    private String encodedPassword;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        delegate = Mockito.spy(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        cachingPasswordEncoder = new CachingPasswordEncoder(meterRegistry, delegate, 100, Duration.ofMinutes(1));
+        encodedPassword = delegate.encode("ndrewcoding");
+    }
+
+    @Test
+    @DisplayName("matches verifies a correct password with the delegate only once")
+    void matches_VerifiesCorrectPasswordOnce(){
+        Assertions.assertThat(cachingPasswordEncoder.matches("ndrewcoding", encodedPassword)).isTrue();
+        Assertions.assertThat(cachingPasswordEncoder.matches("ndrewcoding", encodedPassword)).isTrue();
+
+        Mockito.verify(delegate, Mockito.times(1)).matches("ndrewcoding", encodedPassword);
+    }
+
+    @Test
+    @DisplayName("matches never caches a wrong password")
+    void matches_NeverCachesWrongPassword(){
+        Assertions.assertThat(cachingPasswordEncoder.matches("wrong", encodedPassword)).isFalse();
+        Assertions.assertThat(cachingPasswordEncoder.matches("wrong", encodedPassword)).isFalse();
+
+        Mockito.verify(delegate, Mockito.times(2)).matches("wrong", encodedPassword);
+    }
+
+    @Test
+    @DisplayName("matches verifies again once the stored password hash changes")
+    void matches_VerifiesAgain_WhenPasswordHashChanges(){
+        cachingPasswordEncoder.matches("ndrewcoding", encodedPassword);
+
+        String newEncodedPassword = delegate.encode("new password");
+
+        Assertions.assertThat(cachingPasswordEncoder.matches("ndrewcoding", newEncodedPassword)).isFalse();
+    }
+
+    @Test
+    @DisplayName("matches records cache hits and misses")
+    void matches_RecordsCacheHitsAndMisses(){
+        cachingPasswordEncoder.matches("ndrewcoding", encodedPassword);
+        cachingPasswordEncoder.matches("ndrewcoding", encodedPassword);
+
+        Assertions.assertThat(meterRegistry.get("cache.gets").tag("cache", "verifiedCredentials")
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("cache.gets").tag("cache", "verifiedCredentials")
+                .tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+}
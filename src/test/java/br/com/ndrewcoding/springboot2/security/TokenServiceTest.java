@@ -0,0 +1,64 @@
+package br.com.ndrewcoding.springboot2.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TokenServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+
+    private TokenService tokenService;
+    private String token;
+
+    @BeforeEach
+    void setUp(){
+        tokenService = new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        token = tokenService.issue(new UsernamePasswordAuthenticationToken("andrew", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")));
+    }
+
+    @Test
+    @DisplayName("verify returns the claims of a token it issued")
+    void verify_ReturnsClaims_WhenTokenIsValid(){
+        Assertions.assertThat(tokenService.verify(token)).hasValueSatisfying(tokenClaims -> {
+            Assertions.assertThat(tokenClaims.getSub()).isEqualTo("andrew");
+            Assertions.assertThat(tokenClaims.getRoles()).isEqualTo(List.of("ROLE_USER", "ROLE_ADMIN"));
+            Assertions.assertThat(tokenClaims.getExp()).isEqualTo(NOW.plusSeconds(900).getEpochSecond());
+        });
+    }
+
+    @Test
+    @DisplayName("verify rejects a token whose claims were tampered with")
+    void verify_ReturnsEmpty_WhenClaimsWereTamperedWith(){
+        String[] parts = token.split("\\.");
+        String forgedClaims = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"andrew\",\"roles\":[\"ROLE_ADMIN\"],\"iat\":0,\"exp\":9999999999}".getBytes());
+
+        Assertions.assertThat(tokenService.verify(parts[0] + "." + forgedClaims + "." + parts[2])).isEmpty();
+
+        Assertions.assertThat(tokenService.verify("not-a-token")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("verify rejects an expired token")
+    void verify_ReturnsEmpty_WhenTokenExpired(){
+        TokenService later = new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15),
+                Clock.fixed(NOW.plus(Duration.ofMinutes(16)), ZoneOffset.UTC));
+
+        Assertions.assertThat(later.verify(token)).isEmpty();
+    }
+}
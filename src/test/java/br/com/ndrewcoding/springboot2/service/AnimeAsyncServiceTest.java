@@ -0,0 +1,89 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.exception.AnimeNotFoundException;
+import br.com.ndrewcoding.springboot2.util.AnimeCreator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnimeAsyncServiceTest {
+    private AnimeService animeServiceMock;
+    private AnimeAsyncService animeAsyncService;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp(){
+        animeServiceMock = Mockito.mock(AnimeService.class);
+        animeAsyncService = new AnimeAsyncService(animeServiceMock, new SimpleMeterRegistry(), 1, 1,
+                Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        SecurityContextHolder.clearContext();
+        animeAsyncService.shutdown();
+    }
+
+    @Test
+    @DisplayName("findAnimeByIdOrThrowBadRequestException runs on the executor with the caller's security context")
+    void findAnimeById_RunsWithCallerSecurityContext_WhenSuccessful() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("andrew", null));
+        BDDMockito.when(animeServiceMock.findAnimeByIdOrThrowBadRequestException(1L)).thenAnswer(invocation -> {
+            Assertions.assertThat(Thread.currentThread().getName()).startsWith("anime-async-");
+            Assertions.assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("andrew");
+            return AnimeCreator.createValidAnime();
+        });
+
+        Anime anime = animeAsyncService.findAnimeByIdOrThrowBadRequestException(1L).get(1, TimeUnit.SECONDS);
+
+        Assertions.assertThat(anime).isEqualTo(AnimeCreator.createValidAnime());
+    }
+
+    @Test
+    @DisplayName("findAnimeByIdOrThrowBadRequestException completes exceptionally with the service exception")
+    void findAnimeById_CompletesExceptionally_WhenAnimeIsNotFound(){
+        BDDMockito.when(animeServiceMock.findAnimeByIdOrThrowBadRequestException(1L))
+                .thenThrow(new AnimeNotFoundException());
+
+        CompletableFuture<Anime> future = animeAsyncService.findAnimeByIdOrThrowBadRequestException(1L);
+
+        Assertions.assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(AnimeNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("calls are rejected once the pool and the queue are full, and queued calls time out")
+    void findAnimeById_RejectsAndTimesOut_WhenExecutorIsSaturated(){
+        BDDMockito.when(animeServiceMock.findAnimeByIdOrThrowBadRequestException(1L)).thenAnswer(invocation -> {
+            release.await();
+            return AnimeCreator.createValidAnime();
+        });
+
+        animeAsyncService.findAnimeByIdOrThrowBadRequestException(1L);
+        CompletableFuture<Anime> queued = animeAsyncService.findAnimeByIdOrThrowBadRequestException(1L);
+
+        Assertions.assertThatExceptionOfType(RejectedExecutionException.class)
+                .isThrownBy(() -> animeAsyncService.findAnimeByIdOrThrowBadRequestException(1L));
+
+        Assertions.assertThatThrownBy(() -> queued.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+    }
+}
@@ -0,0 +1,312 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.Validation;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.requests.AnimePutRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkResponse;
+
+@ExtendWith(SpringExtension.class)
+class AnimeBulkServiceTest {
+    private AnimeBulkService animeBulkService;
+    @Mock
+    private AnimeRepository animeRepositoryMock;
+    @Mock
+    private JdbcTemplate jdbcTemplateMock;
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
+
+    @BeforeEach
+    void setUp(){
+        animeBulkService = new AnimeBulkService(animeRepositoryMock, jdbcTemplateMock,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManagerMock,
+                applicationEventPublisherMock, 2);
+
+        AtomicLong sequence = new AtomicLong();
+        BDDMockito.when(animeRepositoryMock.saveAll(ArgumentMatchers.<Iterable<Anime>>any())).thenAnswer(invocation -> {
+            List<Anime> animes = new ArrayList<>();
+            invocation.<Iterable<Anime>>getArgument(0).forEach(anime -> {
+                anime.setId(sequence.incrementAndGet());
+                animes.add(anime);
+            });
+            return animes;
+        });
+    }
+
+    @Test
+    @DisplayName("saveAll inserts valid animes in batches and reports every item in order when successful")
+    void saveAll_InsertsValidAnimesInBatches_WhenSuccessful(){
+        List<AnimePostRequestBody> animePostRequestBodies = Arrays.asList(
+                AnimePostRequestBody.builder().name("Akira").build(),
+                AnimePostRequestBody.builder().name("").build(),
+                AnimePostRequestBody.builder().name("Bleach").build(),
+                null,
+                AnimePostRequestBody.builder().name("Claymore").build());
+
+        AnimeBulkInsertResponse response = animeBulkService.saveAll(animePostRequestBodies.iterator());
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(3);
+
+        Assertions.assertThat(response.getRejected()).isEqualTo(2);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getIndex)
+                .containsExactly(0, 1, 2, 3, 4);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+                AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.INVALID,
+                AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.INVALID,
+                AnimeBulkItemResult.Status.CREATED);
+
+        Assertions.assertThat(response.getItems().get(1).getMessage()).isEqualTo("The anime name cannot be empty");
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getId)
+                .containsExactly(1L, null, 2L, null, 3L);
+
+        Mockito.verify(animeRepositoryMock, Mockito.times(2)).saveAll(ArgumentMatchers.any());
+
+        Mockito.verify(applicationEventPublisherMock, Mockito.times(2))
+                .publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("saveAll reuses the stored anime for names that already exist or repeat")
+    void saveAll_ReturnsExistingIds_WhenNamesAlreadyExistOrRepeat(){
+        BDDMockito.when(animeRepositoryMock.findByNameIn(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.of(Anime.builder().id(42L).name("Akira").build()));
+
+        List<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBody.builder().name("Bleach").build(),
+                AnimePostRequestBody.builder().name("Bleach").build(),
+                AnimePostRequestBody.builder().name("Akira").build());
+
+        AnimeBulkInsertResponse response = animeBulkService.saveAll(animePostRequestBodies.iterator());
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(1);
+
+        Assertions.assertThat(response.getExisting()).isEqualTo(2);
+
+        Assertions.assertThat(response.getRejected()).isZero();
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+                AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.EXISTING,
+                AnimeBulkItemResult.Status.EXISTING);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getId)
+                .containsExactly(1L, 1L, 42L);
+    }
+
+    @Test
+    @DisplayName("saveAll retries a rejected batch one anime at a time and marks only the rejected one as failed")
+    void saveAll_MarksOnlyRejectedItemAsFailed_WhenBatchIsRejected(){
+        AtomicLong sequence = new AtomicLong();
+        BDDMockito.doAnswer(invocation -> {
+            List<Anime> animes = new ArrayList<>();
+            invocation.<Iterable<Anime>>getArgument(0).forEach(animes::add);
+            if (animes.stream().anyMatch(anime -> anime.getName().equals("Bleach"))) {
+                throw new DataIntegrityViolationException("boom");
+            }
+            animes.forEach(anime -> anime.setId(sequence.incrementAndGet()));
+            return animes;
+        }).when(animeRepositoryMock).saveAll(ArgumentMatchers.<Iterable<Anime>>any());
+
+        List<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBody.builder().name("Akira").build(),
+                AnimePostRequestBody.builder().name("Bleach").build(),
+                AnimePostRequestBody.builder().name("Claymore").build());
+
+        AnimeBulkInsertResponse response = animeBulkService.saveAll(animePostRequestBodies.iterator());
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(2);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+                AnimeBulkItemResult.Status.CREATED, AnimeBulkItemResult.Status.FAILED,
+                AnimeBulkItemResult.Status.CREATED);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getId).containsExactly(1L, null, 2L);
+
+        Assertions.assertThat(response.getItems().get(1).getMessage()).isEqualTo("boom");
+    }
+
+    @Test
+    @DisplayName("saveAll marks every item of a batch as failed when the database is unreachable")
+    void saveAll_MarksItemsOfFailedBatchAsFailed_WhenDatabaseIsUnreachable(){
+        BDDMockito.doThrow(new DataAccessResourceFailureException("database is down"))
+                .when(animeRepositoryMock).saveAll(ArgumentMatchers.<Iterable<Anime>>any());
+
+        List<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBody.builder().name("Akira").build(),
+                AnimePostRequestBody.builder().name("Bleach").build());
+
+        AnimeBulkInsertResponse response = animeBulkService.saveAll(animePostRequestBodies.iterator());
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus).containsExactly(
+                AnimeBulkItemResult.Status.FAILED, AnimeBulkItemResult.Status.FAILED);
+
+        Assertions.assertThat(response.getItems().get(0).getMessage()).isEqualTo("database is down");
+
+        Mockito.verify(animeRepositoryMock, Mockito.times(1)).saveAll(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("saveAllOrThrow throws when the database is unreachable instead of reporting the items as failed")
+    void saveAllOrThrow_ThrowsException_WhenDatabaseIsUnreachable(){
+        BDDMockito.doThrow(new DataAccessResourceFailureException("database is down"))
+                .when(animeRepositoryMock).saveAll(ArgumentMatchers.<Iterable<Anime>>any());
+
+        Iterator<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBody.builder().name("Akira").build()).iterator();
+
+        Assertions.assertThatExceptionOfType(DataAccessResourceFailureException.class)
+                .isThrownBy(() -> animeBulkService.saveAllOrThrow(animePostRequestBodies));
+    }
+
+    @Test
+    @DisplayName("saveAllOrThrow reports an anime the database rejects as failed instead of throwing")
+    void saveAllOrThrow_MarksItemAsFailed_WhenAnimeIsRejected(){
+        BDDMockito.doThrow(new DataIntegrityViolationException("value too long"))
+                .when(animeRepositoryMock).saveAll(ArgumentMatchers.<Iterable<Anime>>any());
+
+        Iterator<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBody.builder().name("Akira").build()).iterator();
+
+        AnimeBulkInsertResponse response = animeBulkService.saveAllOrThrow(animePostRequestBodies);
+
+        Assertions.assertThat(response.getItems()).extracting(AnimeBulkItemResult::getStatus)
+                .containsExactly(AnimeBulkItemResult.Status.FAILED);
+
+        Assertions.assertThat(response.getItems().get(0).getMessage()).isEqualTo("value too long");
+    }
+
+    @Test
+    @DisplayName("replaceAll runs batched updates and splits affected and missing ids when successful")
+    void replaceAll_SplitsAffectedAndMissingIds_WhenSuccessful(){
+        BDDMockito.when(jdbcTemplateMock.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any()))
+                .thenReturn(new int[]{1, 0}, new int[]{1});
+
+        AnimeBulkResponse response = animeBulkService.replaceAll(List.of(
+                AnimePutRequestBody.builder().id(1L).name("Akira").build(),
+                AnimePutRequestBody.builder().id(2L).name("Bleach").build(),
+                AnimePutRequestBody.builder().id(3L).name("Claymore").build()));
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(1L, 3L);
+
+        Assertions.assertThat(response.getMissingIds()).containsExactly(2L);
+
+        Mockito.verify(animeRepositoryMock, Mockito.never()).findById(ArgumentMatchers.anyLong());
+
+        Mockito.verify(applicationEventPublisherMock, Mockito.times(2))
+                .publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("replaceAll reports invalid animes by index and still updates the valid ones")
+    void replaceAll_ReportsInvalidAnimes_AndUpdatesValidOnes(){
+        BDDMockito.when(jdbcTemplateMock.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any()))
+                .thenReturn(new int[]{1});
+
+        AnimeBulkResponse response = animeBulkService.replaceAll(Arrays.asList(
+                AnimePutRequestBody.builder().name("Akira").build(),
+                null,
+                AnimePutRequestBody.builder().id(2L).name("").build(),
+                AnimePutRequestBody.builder().id(3L).name("Claymore").build()));
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(3L);
+
+        Assertions.assertThat(response.getRejected()).extracting(AnimeBulkItemResult::getIndex).containsExactly(0, 1, 2);
+
+        Assertions.assertThat(response.getRejected()).extracting(AnimeBulkItemResult::getStatus)
+                .containsOnly(AnimeBulkItemResult.Status.INVALID);
+
+        Assertions.assertThat(response.getRejected().get(2).getId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("replaceAll retries a rejected batch one anime at a time and reports only the rejected anime")
+    void replaceAll_ReportsOnlyRejectedAnime_WhenBatchViolatesConstraint(){
+        BDDMockito.when(jdbcTemplateMock.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any()))
+                .thenAnswer(invocation -> {
+                    List<Object[]> batchArgs = invocation.getArgument(1);
+                    if (batchArgs.stream().anyMatch(args -> "Bleach".equals(args[0]))) {
+                        throw new DataIntegrityViolationException("Duplicate entry 'Bleach' for key 'uk_anime_name'");
+                    }
+                    return batchArgs.stream().mapToInt(args -> 1).toArray();
+                });
+
+        AnimeBulkResponse response = animeBulkService.replaceAll(List.of(
+                AnimePutRequestBody.builder().id(1L).name("Akira").build(),
+                AnimePutRequestBody.builder().id(2L).name("Bleach").build(),
+                AnimePutRequestBody.builder().id(3L).name("Claymore").build()));
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(1L, 3L);
+
+        Assertions.assertThat(response.getMissingIds()).isEmpty();
+
+        Assertions.assertThat(response.getRejected()).hasSize(1).first()
+                .extracting(AnimeBulkItemResult::getIndex, AnimeBulkItemResult::getId, AnimeBulkItemResult::getStatus)
+                .containsExactly(1, 2L, AnimeBulkItemResult.Status.FAILED);
+    }
+
+    @Test
+    @DisplayName("replaceAll reports a batch as failed without retrying it when the database is unreachable")
+    void replaceAll_ReportsBatchAsFailed_WhenDatabaseIsUnreachable(){
+        BDDMockito.when(jdbcTemplateMock.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+
+        AnimeBulkResponse response = animeBulkService.replaceAll(List.of(
+                AnimePutRequestBody.builder().id(1L).name("Akira").build(),
+                AnimePutRequestBody.builder().id(2L).name("Bleach").build()));
+
+        Assertions.assertThat(response.getAffectedIds()).isEmpty();
+
+        Assertions.assertThat(response.getRejected()).extracting(AnimeBulkItemResult::getId).containsExactly(1L, 2L);
+
+        Mockito.verify(jdbcTemplateMock).batchUpdate(ArgumentMatchers.anyString(),
+                ArgumentMatchers.<List<Object[]>>any());
+    }
+
+    @Test
+    @DisplayName("deleteAll deletes the existing ids and reports the missing ones when successful")
+    void deleteAll_SplitsAffectedAndMissingIds_WhenSuccessful(){
+        BDDMockito.when(animeRepositoryMock.findIdsByIdIn(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.of(1L), List.of());
+
+        AnimeBulkResponse response = animeBulkService.deleteAll(List.of(1L, 2L, 1L, 3L));
+
+        Assertions.assertThat(response.getAffectedIds()).containsExactly(1L);
+
+        Assertions.assertThat(response.getMissingIds()).containsExactly(2L, 3L);
+
+        Mockito.verify(animeRepositoryMock).deleteByIdIn(List.of(1L));
+
+        Mockito.verify(applicationEventPublisherMock).publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
+    }
+}
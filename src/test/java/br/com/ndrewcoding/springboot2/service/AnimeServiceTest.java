@@ -1,30 +1,61 @@
 package br.com.ndrewcoding.springboot2.service;
 
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import br.com.ndrewcoding.springboot2.cache.AnimeCache;
+import br.com.ndrewcoding.springboot2.cache.AnimeCatalogVersion;
+import br.com.ndrewcoding.springboot2.cache.AnimeCountCache;
+import br.com.ndrewcoding.springboot2.cache.AnimeLoadCoalescer;
 import br.com.ndrewcoding.springboot2.domain.Anime;
+import br.com.ndrewcoding.springboot2.event.AnimeChangedEvent;
+import br.com.ndrewcoding.springboot2.exception.AnimeNotFoundException;
 import br.com.ndrewcoding.springboot2.exception.BadRequestException;
+import br.com.ndrewcoding.springboot2.repository.AnimeCatalogStats;
 import br.com.ndrewcoding.springboot2.repository.AnimeRepository;
+import br.com.ndrewcoding.springboot2.search.AnimeSearchIndex;
 import br.com.ndrewcoding.springboot2.util.AnimeCreator;
 import br.com.ndrewcoding.springboot2.util.AnimePostRequestBodyCreator;
 import br.com.ndrewcoding.springboot2.util.AnimePutRequestBodyCreator;
+import br.com.ndrewcoding.springboot2.util.SeekCursor;
+import br.com.ndrewcoding.springboot2.wrapper.CursorPage;
+import br.com.ndrewcoding.springboot2.wrapper.SearchPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 class AnimeServiceTest {
@@ -32,14 +63,32 @@ class AnimeServiceTest {
     private AnimeService animeService;
     @Mock
     private AnimeRepository animeRepositoryMock;
+    @Mock
+    private EntityManager entityManagerMock;
+    @Spy
+    private AnimeCountCache animeCountCache = new AnimeCountCache(new SimpleMeterRegistry(), Duration.ofMinutes(1));
+    @Spy
+    private AnimeCache animeCache = new AnimeCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1),
+            100, Duration.ofMinutes(1));
+    @Spy
+    private AnimeLoadCoalescer animeLoadCoalescer = new AnimeLoadCoalescer(new SimpleMeterRegistry());
+    @Spy
+    private AnimeCatalogVersion animeCatalogVersion = new AnimeCatalogVersion(new SimpleMeterRegistry(), Duration.ofMinutes(1));
+    @Mock
+    private AnimeSearchIndex animeSearchIndexMock;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
 
     @BeforeEach
     void setUp(){
-        PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
-        BDDMockito.when(animeRepositoryMock.findAll(ArgumentMatchers.any(PageRequest.class)))
-                .thenReturn(animePage);
+        SliceImpl<Anime> animeSlice = new SliceImpl<>(List.of(AnimeCreator.createValidAnime()));
+        BDDMockito.when(animeRepositoryMock.findAllBy(ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(animeSlice);
+
+        BDDMockito.when(animeRepositoryMock.count())
+                .thenReturn(1L);
 
-        BDDMockito.when(animeRepositoryMock.findAll())
+        BDDMockito.when(animeRepositoryMock.findAllBy())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
         BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
@@ -51,6 +100,12 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
                 .thenReturn(AnimeCreator.createValidAnime());
 
+        BDDMockito.when(animeRepositoryMock.insertIfAbsent(ArgumentMatchers.any(Anime.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<Anime>getArgument(0).setId(1L);
+                    return true;
+                });
+
         BDDMockito.doNothing().when(animeRepositoryMock).delete(ArgumentMatchers.any(Anime.class));
     }
     @Test
@@ -69,6 +124,34 @@ class AnimeServiceTest {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listAll reuses the cached total count when successful")
+    void listAll_ReusesCachedTotalCount_WhenSuccessful(){
+        animeService.listAll(PageRequest.of(1,1));
+
+        Page<Anime> animePage = animeService.listAll(PageRequest.of(1,1));
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(2);
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).count();
+    }
+
+    @Test
+    @DisplayName("listAllSlice returns list of anime inside slice object without counting when successful")
+    void listAllSlice_ReturnsListOfAnimesInsideSliceObjectWithoutCounting_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        Slice<Anime> animeSlice = animeService.listAllSlice(PageRequest.of(1,1));
+
+        Assertions.assertThat(animeSlice.toList())
+                .isNotEmpty()
+                .hasSize(1);
+
+        Assertions.assertThat(animeSlice.toList().get(0).getName()).isEqualTo(expectedName);
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).count();
+    }
+
     @Test
     @DisplayName("listAllNonPageable returns list of anime when successful")
     void listAllNonPageable_ReturnsListOfAnimes_WhenSuccessful(){
@@ -84,6 +167,67 @@ class AnimeServiceTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listAllByCursor returns first page with next cursor only when there are more animes")
+    void listAllByCursor_ReturnsFirstPageWithNextCursorOnly_WhenThereAreMoreAnimes(){
+        Anime lastAnimeOfPage = AnimeCreator.createValidAnime();
+        BDDMockito.when(animeRepositoryMock.findByKeyset("id", Sort.Direction.ASC, null, 2))
+                .thenReturn(List.of(lastAnimeOfPage, Anime.builder().id(2L).name("Overlord").build()));
+
+        CursorPage<Anime> animePage = animeService.listAllByCursor(null, "id", "asc", 1, false);
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(lastAnimeOfPage);
+
+        Assertions.assertThat(animePage.getPrevCursor()).isNull();
+
+        Assertions.assertThat(animePage.getTotalElements()).isNull();
+
+        SeekCursor nextCursor = SeekCursor.decode(animePage.getNextCursor());
+
+        Assertions.assertThat(nextCursor.getId()).isEqualTo(lastAnimeOfPage.getId());
+
+        Assertions.assertThat(nextCursor.isBackward()).isFalse();
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("listAllByCursor reuses the total count cached by listAll when successful")
+    void listAllByCursor_ReusesCachedTotalCount_WhenSuccessful(){
+        BDDMockito.when(animeRepositoryMock.findByKeyset("id", Sort.Direction.ASC, null, 2))
+                .thenReturn(List.of(AnimeCreator.createValidAnime()));
+
+        animeService.listAll(PageRequest.of(1,1));
+
+        CursorPage<Anime> animePage = animeService.listAllByCursor(null, "id", "asc", 1, true);
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(1);
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).count();
+    }
+
+    @Test
+    @DisplayName("listAllByCursor throws BadRequestException when cursor is invalid")
+    void listAllByCursor_ThrowsBadRequestException_WhenCursorIsInvalid(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAllByCursor("not-a-cursor", "id", "asc", 1, true));
+    }
+
+    @Test
+    @DisplayName("streamAll hands every anime to the consumer and detaches it when successful")
+    void streamAll_HandsEveryAnimeToConsumerAndDetachesIt_WhenSuccessful(){
+        Anime expectedAnime = AnimeCreator.createValidAnime();
+        BDDMockito.when(animeRepositoryMock.streamAll())
+                .thenReturn(Stream.of(expectedAnime));
+
+        List<Anime> animes = new ArrayList<>();
+        animeService.streamAll(animes::add);
+
+        Assertions.assertThat(animes).containsExactly(expectedAnime);
+
+        BDDMockito.verify(entityManagerMock).detach(expectedAnime);
+    }
+
     @Test
     @DisplayName("findByIdOrThrowBadRequestException returns anime when successful")
     void findByIdOrThrowBadRequestException_ReturnsAnime_WhenSuccessful(){
@@ -96,6 +240,69 @@ class AnimeServiceTest {
         Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException serves repeated lookups from cache when successful")
+    void findByIdOrThrowBadRequestException_ServesRepeatedLookupsFromCache_WhenSuccessful(){
+        animeService.findAnimeByIdOrThrowBadRequestException(1);
+
+        Anime anime = animeService.findAnimeByIdOrThrowBadRequestException(1);
+
+        Assertions.assertThat(anime).isEqualTo(AnimeCreator.createValidAnime());
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException shares one repository load between concurrent misses")
+    void findByIdOrThrowBadRequestException_SharesOneRepositoryLoad_BetweenConcurrentMisses() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return Optional.of(AnimeCreator.createValidAnime());
+                });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            Future<Anime> leader = executorService.submit(() -> animeService.findAnimeByIdOrThrowBadRequestException(1));
+            Assertions.assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Anime>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executorService.submit(() -> animeService.findAnimeByIdOrThrowBadRequestException(1)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            Assertions.assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo(AnimeCreator.createValidAnime());
+            for (Future<Anime> follower : followers) {
+                Assertions.assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo(AnimeCreator.createValidAnime());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException reloads anime after it changes")
+    void findByIdOrThrowBadRequestException_ReloadsAnime_AfterItChanges(){
+        animeService.findAnimeByIdOrThrowBadRequestException(1);
+
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(AnimeCreator.createValidUpdatedAnime()));
+
+        animeCache.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.UPDATED, Set.of(1L),
+                Set.of(AnimeCreator.createValidAnime().getName())));
+
+        Anime anime = animeService.findAnimeByIdOrThrowBadRequestException(1);
+
+        Assertions.assertThat(anime).isEqualTo(AnimeCreator.createValidUpdatedAnime());
+    }
+
     @Test
     @DisplayName("findByIdOrThrowBadRequestException throws BadRequestException when anime is not found")
     void findByIdOrThrowBadRequestException_ThrowsBadRequestException_WhenAnimeIsNotFound(){
@@ -106,6 +313,41 @@ class AnimeServiceTest {
                 .isThrownBy(() -> animeService.findAnimeByIdOrThrowBadRequestException(1));
     }
 
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException answers repeated misses from cache with a stackless exception")
+    void findByIdOrThrowBadRequestException_AnswersRepeatedMissesFromCacheWithStacklessException_WhenAnimeIsNotFound(){
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(AnimeNotFoundException.class)
+                .isThrownBy(() -> animeService.findAnimeByIdOrThrowBadRequestException(1));
+
+        Assertions.assertThatExceptionOfType(AnimeNotFoundException.class)
+                .isThrownBy(() -> animeService.findAnimeByIdOrThrowBadRequestException(1))
+                .satisfies(exception -> Assertions.assertThat(exception.getStackTrace()).isEmpty());
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException finds anime created after a cached miss")
+    void findByIdOrThrowBadRequestException_FindsAnimeCreated_AfterCachedMiss(){
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(AnimeNotFoundException.class)
+                .isThrownBy(() -> animeService.findAnimeByIdOrThrowBadRequestException(1));
+
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(AnimeCreator.createValidAnime()));
+
+        animeCache.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.CREATED, Set.of(1L),
+                Set.of(AnimeCreator.createValidAnime().getName())));
+
+        Assertions.assertThat(animeService.findAnimeByIdOrThrowBadRequestException(1))
+                .isEqualTo(AnimeCreator.createValidAnime());
+    }
+
     @Test
     @DisplayName("findByName returns a list of anime when successful")
     void findByName_ReturnsListOfAnime_WhenSuccessful(){
@@ -121,6 +363,18 @@ class AnimeServiceTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("findByName serves repeated lookups from cache when successful")
+    void findByName_ServesRepeatedLookupsFromCache_WhenSuccessful(){
+        animeService.findByName("anime");
+
+        List<Anime> animes = animeService.findByName("anime");
+
+        Assertions.assertThat(animes).containsExactly(AnimeCreator.createValidAnime());
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findByName("anime");
+    }
+
     @Test
     @DisplayName("findByName returns an empty list of anime when anime is not found")
     void findByName_ReturnsEmptyListOfAnime_WhenAnimeIsNotFound(){
@@ -135,16 +389,93 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("search returns animes in the order ranked by the index when successful")
+    void search_ReturnsAnimesInRankedOrder_WhenSuccessful(){
+        Anime ippo = AnimeCreator.createValidAnime();
+        Anime ippon = Anime.builder().id(2L).name("Ippon").build();
+        BDDMockito.when(animeSearchIndexMock.isReady()).thenReturn(true);
+        BDDMockito.when(animeSearchIndexMock.search("ip", PageRequest.of(0, 5)))
+                .thenReturn(new SearchPage<>(List.of(2L, 1L), PageRequest.of(0, 5), 2, false));
+        BDDMockito.when(animeRepositoryMock.findAllById(List.of(2L, 1L)))
+                .thenReturn(List.of(ippo, ippon));
+
+        Page<Anime> animePage = animeService.search("ip", PageRequest.of(0, 5));
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(ippon, ippo);
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("search falls back to a database prefix query while the index warms up")
+    void search_FallsBackToDatabasePrefixQuery_WhileIndexWarmsUp(){
+        PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
+        BDDMockito.when(animeRepositoryMock.findByNameStartingWithIgnoreCase("Haj", PageRequest.of(0, 5)))
+                .thenReturn(animePage);
+
+        Assertions.assertThat(animeService.search("Haj", PageRequest.of(0, 5))).isSameAs(animePage);
+    }
+
+    @Test
+    @DisplayName("getCatalogVersion is served from cache until an anime changes")
+    void getCatalogVersion_IsServedFromCache_UntilAnimeChanges(){
+        BDDMockito.when(animeRepositoryMock.findCatalogStats()).thenReturn(new AnimeCatalogStats() {
+            @Override
+            public long getCount() {
+                return 2;
+            }
+
+            @Override
+            public Instant getLastModified() {
+                return Instant.ofEpochSecond(1);
+            }
+        });
+
+        String catalogVersion = animeService.getCatalogVersion();
+
+        Assertions.assertThat(animeService.getCatalogVersion()).isEqualTo(catalogVersion).isEqualTo("2-f4240");
+
+        animeCatalogVersion.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.UPDATED, Set.of(1L), null));
+
+        animeService.getCatalogVersion();
+
+        BDDMockito.verify(animeRepositoryMock, Mockito.times(2)).findCatalogStats();
+    }
+
     @Test
     @DisplayName("save returns anime when successful")
     void save_ReturnsAnime_WhenSuccessful(){
 
-        Anime anime = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+        AnimeSaveResult animeSaveResult = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        Assertions.assertThat(animeSaveResult.getAnime()).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
 
-        Assertions.assertThat(anime).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
+        Assertions.assertThat(animeSaveResult.isCreated()).isTrue();
+
+        BDDMockito.verify(applicationEventPublisherMock)
+                .publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
 
     }
 
+    @Test
+    @DisplayName("save returns the stored anime without publishing an event when the name already exists")
+    void save_ReturnsStoredAnimeWithoutEvent_WhenNameAlreadyExists(){
+        BDDMockito.when(animeRepositoryMock.insertIfAbsent(ArgumentMatchers.any(Anime.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<Anime>getArgument(0).setId(1L);
+                    return false;
+                });
+
+        AnimeSaveResult animeSaveResult = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        Assertions.assertThat(animeSaveResult.getAnime()).isEqualTo(AnimeCreator.createValidAnime());
+
+        Assertions.assertThat(animeSaveResult.isCreated()).isFalse();
+
+        BDDMockito.verifyNoInteractions(applicationEventPublisherMock);
+    }
+
     @Test
     @DisplayName("replace updates anime when successful")
     void replace_UpdatesAnime_WhenSuccessful(){
@@ -154,6 +485,21 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("replace reads the version from the repository even when the anime is cached")
+    void replace_ReadsVersionFromRepository_WhenAnimeIsCached(){
+        animeService.findAnimeByIdOrThrowBadRequestException(1L);
+        BDDMockito.when(animeRepositoryMock.findById(1L))
+                .thenReturn(Optional.of(AnimeCreator.createValidAnime().toBuilder().version(3L).build()));
+
+        animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody());
+
+        ArgumentCaptor<Anime> animeCaptor = ArgumentCaptor.forClass(Anime.class);
+        BDDMockito.verify(animeRepositoryMock).save(animeCaptor.capture());
+
+        Assertions.assertThat(animeCaptor.getValue().getVersion()).isEqualTo(3L);
+    }
+
     @Test
     @DisplayName("delete removes anime when successful")
     void delete_RemovesAnime_WhenSuccessful(){
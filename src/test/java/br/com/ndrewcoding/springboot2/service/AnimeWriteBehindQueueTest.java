@@ -0,0 +1,287 @@
+package br.com.ndrewcoding.springboot2.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.ndrewcoding.springboot2.exception.AnimeQueueFullException;
+import br.com.ndrewcoding.springboot2.requests.AnimePostRequestBody;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkInsertResponse;
+import br.com.ndrewcoding.springboot2.responses.AnimeBulkItemResult;
+import br.com.ndrewcoding.springboot2.responses.AnimeQueuedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnimeWriteBehindQueueTest {
+    @TempDir
+    Path tempDir;
+
+    private Path journal;
+    private AnimeBulkService animeBulkServiceMock;
+    private final List<String> insertedNames = new ArrayList<>();
+    private final List<AnimeWriteBehindQueue> queues = new ArrayList<>();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final Map<String, List<String>> journalByInsertedName = new HashMap<>();
+    private final Map<String, Throwable> failuresByName = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp(){
+        journal = tempDir.resolve("anime.journal");
+        animeBulkServiceMock = Mockito.mock(AnimeBulkService.class);
+        BDDMockito.when(animeBulkServiceMock.saveAllOrThrow(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            attempts.incrementAndGet();
+            if (databaseDown.get()) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+            Iterator<AnimePostRequestBody> animePostRequestBodies = invocation.getArgument(0);
+            List<AnimeBulkItemResult> items = new ArrayList<>();
+            while (animePostRequestBodies.hasNext()) {
+                String name = animePostRequestBodies.next().getName();
+                if (failuresByName.containsKey(name)) {
+                    throw failuresByName.get(name);
+                }
+                insertedNames.add(name);
+                journalByInsertedName.put(name, Files.readAllLines(journal));
+                items.add(AnimeBulkItemResult.builder().index(items.size()).status(AnimeBulkItemResult.Status.CREATED)
+                        .id((long) insertedNames.size()).build());
+            }
+            return AnimeBulkInsertResponse.builder().created(items.size()).items(items).build();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        for (AnimeWriteBehindQueue queue : queues) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("enqueue acknowledges the anime and the worker reports it as created once its batch is inserted")
+    void enqueue_ReportsCreated_AfterWorkerFlushes() throws IOException {
+        AnimeWriteBehindQueue queue = queue(10);
+
+        AnimeQueuedResponse queued = queue.enqueue(AnimePostRequestBody.builder().name("Akira").build());
+
+        Assertions.assertThat(queued.getStatus()).isEqualTo(AnimeQueuedResponse.Status.QUEUED);
+
+        queue.start();
+
+        awaitStatus(queue, queued.getTrackingId(), AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(queue.status(queued.getTrackingId()).getId()).isEqualTo(1L);
+        Assertions.assertThat(insertedNames).containsExactly("Akira");
+        Assertions.assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    @DisplayName("enqueue throws AnimeQueueFullException when the queue is at capacity")
+    void enqueue_ThrowsAnimeQueueFullException_WhenQueueIsFull() throws IOException {
+        AnimeWriteBehindQueue queue = queue(1);
+
+        queue.enqueue(AnimePostRequestBody.builder().name("Akira").build());
+
+        Assertions.assertThatExceptionOfType(AnimeQueueFullException.class)
+                .isThrownBy(() -> queue.enqueue(AnimePostRequestBody.builder().name("Bleach").build()));
+    }
+
+    @Test
+    @DisplayName("a batch that fails to insert stays queued and journaled and is retried until it commits")
+    void start_RetriesBatchAndKeepsJournal_WhenInsertFails() throws IOException {
+        databaseDown.set(true);
+        AnimeWriteBehindQueue queue = queue(10);
+        String akira = queue.enqueue(AnimePostRequestBody.builder().name("Akira").build()).getTrackingId();
+
+        queue.start();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (attempts.get() < 3 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThat(attempts.get()).isGreaterThanOrEqualTo(3);
+
+        Assertions.assertThat(queue.status(akira).getStatus()).isEqualTo(AnimeQueuedResponse.Status.QUEUED);
+
+        Assertions.assertThat(Files.readAllLines(journal)).hasSize(1).allMatch(line -> line.startsWith("+" + akira));
+
+        databaseDown.set(false);
+
+        awaitStatus(queue, akira, AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(insertedNames).containsExactly("Akira");
+        Assertions.assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    @DisplayName("a batch that fails for any reason other than an unreachable database is reported as failed once")
+    void start_ReportsFailedAndMovesOn_WhenInsertFailsWithNonTransientError() throws IOException {
+        failuresByName.put("Akira", new IllegalStateException("not an anime"));
+        AnimeWriteBehindQueue queue = queue(10, 1, Duration.ofMinutes(1), DataSize.ofMegabytes(64));
+        String akira = queue.enqueue(AnimePostRequestBody.builder().name("Akira").build()).getTrackingId();
+        String bleach = queue.enqueue(AnimePostRequestBody.builder().name("Bleach").build()).getTrackingId();
+
+        queue.start();
+
+        awaitStatus(queue, bleach, AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(queue.status(akira).getStatus()).isEqualTo(AnimeQueuedResponse.Status.FAILED);
+
+        Assertions.assertThat(queue.status(akira).getMessage()).isEqualTo("not an anime");
+
+        Assertions.assertThat(attempts.get()).isEqualTo(2);
+
+        Assertions.assertThat(insertedNames).containsExactly("Bleach");
+        Assertions.assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    @DisplayName("the worker keeps draining the queue after a batch fails with an error")
+    void start_KeepsDraining_WhenBatchFailsWithError() throws IOException {
+        failuresByName.put("Akira", new StackOverflowError("too deep"));
+        AnimeWriteBehindQueue queue = queue(10, 1, Duration.ofMinutes(1), DataSize.ofMegabytes(64));
+        String akira = queue.enqueue(AnimePostRequestBody.builder().name("Akira").build()).getTrackingId();
+        String bleach = queue.enqueue(AnimePostRequestBody.builder().name("Bleach").build()).getTrackingId();
+
+        queue.start();
+
+        awaitStatus(queue, bleach, AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(queue.status(akira).getStatus()).isEqualTo(AnimeQueuedResponse.Status.FAILED);
+
+        Assertions.assertThat(insertedNames).containsExactly("Bleach");
+    }
+
+    @Test
+    @DisplayName("enqueue journals every anime acknowledged by concurrent callers sharing the journal fsync")
+    void enqueue_JournalsEveryAnime_WhenCalledConcurrently() throws IOException, InterruptedException {
+        AnimeWriteBehindQueue queue = queue(1000);
+        List<String> trackingIds = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> callers = new ArrayList<>();
+        for (int caller = 0; caller < 8; caller++) {
+            int offset = caller * 50;
+            callers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    String trackingId = queue
+                            .enqueue(AnimePostRequestBody.builder().name("Anime " + (offset + i)).build())
+                            .getTrackingId();
+                    synchronized (trackingIds) {
+                        trackingIds.add(trackingId);
+                    }
+                }
+            }));
+        }
+        callers.forEach(Thread::start);
+        start.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        Assertions.assertThat(trackingIds).hasSize(400);
+
+        Assertions.assertThat(Files.readAllLines(journal)).hasSize(400)
+                .allMatch(line -> trackingIds.contains(line.substring(1, line.indexOf(' '))));
+    }
+
+    @Test
+    @DisplayName("animes still pending when the queue stops are queued again from the journal on the next start")
+    void start_InsertsAnimesLeftInJournal_AfterRestart() throws IOException, InterruptedException {
+        AnimeWriteBehindQueue stopped = queue(10);
+        String akira = stopped.enqueue(AnimePostRequestBody.builder().name("Akira").build()).getTrackingId();
+        String bleach = stopped.enqueue(AnimePostRequestBody.builder().name("Bleach").build()).getTrackingId();
+        stopped.destroy();
+
+        AnimeWriteBehindQueue restarted = queue(10);
+
+        Assertions.assertThat(restarted.status(akira).getStatus()).isEqualTo(AnimeQueuedResponse.Status.QUEUED);
+
+        restarted.start();
+
+        awaitStatus(restarted, bleach, AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(insertedNames).containsExactly("Akira", "Bleach");
+    }
+
+    @Test
+    @DisplayName("a pending anime keeps reporting QUEUED after the status ttl while its batch is retried")
+    void status_KeepsReportingQueued_WhenRetriesOutlastStatusTtl() throws IOException, InterruptedException {
+        databaseDown.set(true);
+        AnimeWriteBehindQueue queue = queue(10, 100, Duration.ofMillis(1), DataSize.ofMegabytes(64));
+        String akira = queue.enqueue(AnimePostRequestBody.builder().name("Akira").build()).getTrackingId();
+
+        queue.start();
+        Thread.sleep(50);
+
+        Assertions.assertThat(queue.status(akira).getStatus()).isEqualTo(AnimeQueuedResponse.Status.QUEUED);
+    }
+
+    @Test
+    @DisplayName("the journal is rewritten with only the pending animes once it passes the compact threshold")
+    void start_CompactsJournalToPendingAnimes_WhenJournalPassesThreshold() throws IOException {
+        AnimeWriteBehindQueue queue = queue(10, 1, Duration.ofMinutes(1), DataSize.ofBytes(1));
+        queue.enqueue(AnimePostRequestBody.builder().name("Akira").build());
+        String bleach = queue.enqueue(AnimePostRequestBody.builder().name("Bleach").build()).getTrackingId();
+        String claymore = queue.enqueue(AnimePostRequestBody.builder().name("Claymore").build()).getTrackingId();
+
+        queue.start();
+
+        awaitStatus(queue, claymore, AnimeQueuedResponse.Status.CREATED);
+
+        Assertions.assertThat(journalByInsertedName.get("Bleach")).hasSize(2)
+                .anyMatch(line -> line.startsWith("+" + bleach)).anyMatch(line -> line.startsWith("+" + claymore));
+
+        Assertions.assertThat(Files.size(journal)).isZero();
+    }
+
+    private AnimeWriteBehindQueue queue(int capacity) throws IOException {
+        return queue(capacity, 100, Duration.ofMinutes(1), DataSize.ofMegabytes(64));
+    }
+
+    private AnimeWriteBehindQueue queue(int capacity, int batchSize, Duration statusTtl, DataSize journalCompactThreshold)
+            throws IOException {
+        AnimeWriteBehindQueue queue = new AnimeWriteBehindQueue(animeBulkServiceMock, new ObjectMapper(),
+                new SimpleMeterRegistry(), capacity, batchSize, journal, statusTtl, Duration.ofMillis(10),
+                journalCompactThreshold);
+        queues.add(queue);
+        return queue;
+    }
+
+    private void awaitStatus(AnimeWriteBehindQueue queue, String trackingId, AnimeQueuedResponse.Status status) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (queue.status(trackingId).getStatus() != status && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertThat(queue.status(trackingId).getStatus()).isEqualTo(status);
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.ndrewcoding.springboot2.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<Long, String> singleFlight;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>(meterRegistry, "test");
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown(){
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("load shares the leader's result with callers arriving while it is in flight")
+    void load_SharesLeaderResult_WithConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Overlord";
+        }), executorService);
+        awaitInFlight(1);
+
+        List<CompletableFuture<String>> followers = List.of(
+                CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> "Stale"), executorService),
+                CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> "Stale"), executorService));
+        while (meterRegistry.get(SingleFlight.COALESCED).counter().count() < followers.size()) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        Assertions.assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("Overlord");
+        for (CompletableFuture<String> follower : followers) {
+            Assertions.assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("Overlord");
+        }
+        Assertions.assertThat(loads).hasValue(1);
+        Assertions.assertThat(meterRegistry.get(SingleFlight.LOADS).counter().count()).isEqualTo(1);
+        Assertions.assertThat(singleFlight.load(1L, () -> "Reloaded")).isEqualTo("Reloaded");
+    }
+
+    @Test
+    @DisplayName("load rethrows the leader's exception to every caller and lets the next caller retry")
+    void load_RethrowsLeaderException_ToEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> {
+            await(release);
+            throw new IllegalStateException("Database unavailable");
+        }), executorService);
+        awaitInFlight(1);
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> "Stale"),
+                executorService);
+        while (meterRegistry.get(SingleFlight.COALESCED).counter().count() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> caller : List.of(leader, follower)) {
+            Assertions.assertThatThrownBy(() -> caller.get(10, TimeUnit.SECONDS))
+                    .hasRootCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("Database unavailable");
+        }
+        Assertions.assertThat(singleFlight.load(1L, () -> "Overlord")).isEqualTo("Overlord");
+    }
+
+    @Test
+    @DisplayName("forget makes later callers start their own load instead of joining the one in flight")
+    void forget_StartsNewLoad_ForLaterCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, () -> {
+            await(release);
+            return "Overlord";
+        }), executorService);
+        awaitInFlight(1);
+
+        singleFlight.forget(List.of(1L));
+
+        Assertions.assertThat(singleFlight.load(1L, () -> "Overlord II")).isEqualTo("Overlord II");
+        release.countDown();
+        Assertions.assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("Overlord");
+        Assertions.assertThat(meterRegistry.get(SingleFlight.COALESCED).counter().count()).isZero();
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        while (meterRegistry.get("ndrewcoding.singleflight.in-flight").gauge().value() < expected) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}